@@ -0,0 +1,62 @@
+package com.ecommerce.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Orders and order items moved from IDENTITY columns to pooled sequences. On an existing database the new
+// sequences start at 1, so they are moved past the ids already in use before any order is written.
+@Component
+public class OrderSequenceInitializer {
+
+    // Must match the allocationSize of the @SequenceGenerator mappings
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final String[][] SEQUENCES = {
+            {"orders_seq", "orders"},
+            {"order_items_seq", "order_items"}
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+
+    // Depends on the EntityManagerFactory so Hibernate has created the sequences first
+    public OrderSequenceInitializer(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                    EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+    }
+
+    @PostConstruct
+    public void alignSequences() {
+        boolean mySql = isMySql();
+        for (String[] sequence : SEQUENCES) {
+            String name = sequence[0];
+            String table = sequence[1];
+            if (mySql) {
+                // MySQL has no sequences; Hibernate emulates each one with a single-row next_val table.
+                // The pooled optimizer hands out (next_val - allocation, next_val], so stay one block ahead.
+                jdbcTemplate.update("UPDATE " + name + " SET next_val = GREATEST(next_val, " +
+                        "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + (ALLOCATION_SIZE + 1) + ")");
+            } else {
+                // After setval(n) the next block is (n, n + allocation]
+                jdbcTemplate.queryForObject("SELECT setval('" + name + "', GREATEST(" +
+                        "(SELECT last_value FROM " + name + "), (SELECT COALESCE(MAX(id), 1) FROM " + table + ")))",
+                        Long.class);
+            }
+        }
+    }
+
+    private boolean isMySql() {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to inspect database: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.entity.FlashSale;
+import com.ecommerce.service.FlashSaleService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/products/flash-sales")
+@CrossOrigin(origins = "*")
+public class FlashSaleController {
+
+    private final FlashSaleService flashSaleService;
+
+    public FlashSaleController(FlashSaleService flashSaleService) {
+        this.flashSaleService = flashSaleService;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<Map<String, Object>>> getFlashSales() {
+        return ResponseEntity.ok(flashSaleService.getFlashSales());
+    }
+
+    @PostMapping("/{productId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<FlashSale> enableFlashSale(@PathVariable Long productId,
+                                                     @RequestParam(required = false) Integer shards) {
+        return ResponseEntity.ok(flashSaleService.enable(productId, shards));
+    }
+
+    @DeleteMapping("/{productId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> disableFlashSale(@PathVariable Long productId) {
+        flashSaleService.disable(productId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,9 +1,12 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.StockReservation;
 import com.ecommerce.entity.Order;
+import com.ecommerce.service.OrderIdempotencyService;
 import com.ecommerce.service.OrderService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -11,6 +14,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/orders")
@@ -18,17 +22,42 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderIdempotencyService orderIdempotencyService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderIdempotencyService orderIdempotencyService) {
         this.orderService = orderService;
+        this.orderIdempotencyService = orderIdempotencyService;
     }
 
     @PostMapping
-    public ResponseEntity<Order> createOrder(@Valid @RequestBody Order order, 
+    public ResponseEntity<?> createOrder(@Valid @RequestBody Order order, 
+                                           @RequestParam(required = false) String reservationId,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                                            Authentication authentication) {
         String email = authentication.getName();
-        Order createdOrder = orderService.createOrder(email, order);
-        return ResponseEntity.ok(createdOrder);
+        try {
+            Order createdOrder = idempotencyKey != null
+                    ? orderIdempotencyService.createOrder(email, order, reservationId, idempotencyKey)
+                    : orderService.createOrder(email, order, reservationId, null);
+            return ResponseEntity.ok(createdOrder);
+        } catch (OrderIdempotencyService.AttemptInProgressException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/reservations")
+    public ResponseEntity<StockReservation> reserveCart(Authentication authentication) {
+        String email = authentication.getName();
+        StockReservation reservation = orderService.reserveCart(email);
+        return ResponseEntity.ok(reservation);
+    }
+
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<?> releaseReservation(@PathVariable String reservationId,
+                                                Authentication authentication) {
+        String email = authentication.getName();
+        orderService.releaseReservation(reservationId, email);
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping
@@ -62,6 +91,12 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    @PostMapping("/admin/cancel")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> cancelOrders(@RequestBody List<Long> orderIds) {
+        return ResponseEntity.ok(orderService.cancelOrders(orderIds));
+    }
+
     @PutMapping("/admin/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Order> updateOrderStatus(@PathVariable Long id, 
@@ -1,5 +1,12 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.HomeCatalog;
+import com.ecommerce.dto.ProductBatchItem;
+import com.ecommerce.dto.ProductChangesResponse;
+import com.ecommerce.dto.ProductCursorPage;
+import com.ecommerce.dto.ProductFacetsResponse;
+import com.ecommerce.dto.ProductSummary;
+import com.ecommerce.dto.SuggestionResponse;
 import com.ecommerce.entity.Product;
 import com.ecommerce.service.ProductService;
 import org.springframework.data.domain.Page;
@@ -7,9 +14,14 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/products")
@@ -31,34 +43,145 @@ public class ProductController {
             @RequestParam(defaultValue = "10000") Double maxPrice,
             @RequestParam(defaultValue = "name") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir,
-            Pageable pageable) {
+            Pageable pageable,
+            WebRequest request) {
         
+        // Unchanged catalog: answer 304 before running the listing query
+        if (request.checkNotModified(productService.getCatalogEtag(), productService.getCatalogLastModified())) {
+            return null;
+        }
         Page<Product> products = productService.getAllProducts(search, category, brand, minPrice, maxPrice, sortBy, sortDir, pageable);
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/summaries")
+    public ResponseEntity<?> getProductSummaries(
+            @RequestParam(defaultValue = "") String search,
+            @RequestParam(defaultValue = "") String category,
+            @RequestParam(defaultValue = "") String brand,
+            @RequestParam(defaultValue = "0") Double minPrice,
+            @RequestParam(defaultValue = "10000") Double maxPrice,
+            @RequestParam(defaultValue = "name") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String fields,
+            Pageable pageable) {
+        
+        Page<ProductSummary> summaries = productService.getProductSummaries(search, category, brand,
+                minPrice, maxPrice, sortBy, sortDir, pageable);
+        if (fields == null || fields.isBlank()) {
+            return ResponseEntity.ok(summaries);
+        }
+        Set<String> selected = ProductService.parseSummaryFields(fields);
+        return ResponseEntity.ok(summaries.map(summary -> summary.select(selected)));
+    }
+
+    @GetMapping("/featured/summaries")
+    public ResponseEntity<?> getFeaturedSummaries(@RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(selectFields(productService.getFeaturedSummaries(), fields));
+    }
+
+    @GetMapping("/best-sellers/summaries")
+    public ResponseEntity<?> getBestSellerSummaries(@RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(selectFields(productService.getBestSellerSummaries(), fields));
+    }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<ProductCursorPage> scrollProducts(
+            @RequestParam(defaultValue = "") String search,
+            @RequestParam(defaultValue = "") String category,
+            @RequestParam(defaultValue = "") String brand,
+            @RequestParam(defaultValue = "0") Double minPrice,
+            @RequestParam(defaultValue = "10000") Double maxPrice,
+            @RequestParam(defaultValue = "name") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        ProductCursorPage page = productService.scrollProducts(search, category, brand, minPrice, maxPrice,
+                sortBy, sortDir, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChangesResponse> getProductChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") int limit) {
+        
+        ProductChangesResponse changes = productService.getProductChanges(since, cursor, limit);
+        return ResponseEntity.ok(changes);
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetsResponse> getProductFacets(
+            @RequestParam(defaultValue = "") String search,
+            @RequestParam(defaultValue = "") String category,
+            @RequestParam(defaultValue = "") String brand,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice) {
+        
+        ProductFacetsResponse facets = productService.getProductFacets(search, category, brand, minPrice, maxPrice);
+        return ResponseEntity.ok(facets);
+    }
+
+    @GetMapping("/batch")
+    public ResponseEntity<List<ProductBatchItem>> getProductsByIds(@RequestParam List<Long> ids) {
+        List<ProductBatchItem> items = productService.getProductsByIds(ids);
+        return ResponseEntity.ok(items);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
+    public ResponseEntity<Product> getProductById(@PathVariable Long id, WebRequest request) {
         Product product = productService.getProductById(id);
+        
+        // Row version: updatedAt moves on every write to the product
+        long lastModified = product.getUpdatedAt() != null
+                ? product.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : productService.getCatalogLastModified();
+        String etag = "\"product-" + id + "-" + Long.toString(lastModified, 36) + "\"";
+        if (request.checkNotModified(etag, lastModified)) {
+            return null;
+        }
         return ResponseEntity.ok(product);
     }
 
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<Product>> getRelatedProducts(@PathVariable Long id) {
+        List<Product> products = productService.getRelatedProducts(id);
+        return ResponseEntity.ok(products);
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String query) {
-        List<Product> products = productService.searchProducts(query);
+    public ResponseEntity<List<Product>> searchProducts(@RequestParam String query,
+                                                        @RequestParam(defaultValue = "false") boolean fuzzy) {
+        List<Product> products = productService.searchProducts(query, fuzzy);
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggest(@RequestParam String query,
+                                                            @RequestParam(defaultValue = "8") int limit) {
+        List<SuggestionResponse> suggestions = productService.suggest(query, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+
     @GetMapping("/categories")
     public ResponseEntity<List<String>> getAllCategories() {
-        List<String> categories = productService.getAllCategories();
-        return ResponseEntity.ok(categories);
+        HomeCatalog catalog = productService.getHomeCatalog();
+        return ResponseEntity.ok().eTag(catalog.getEtag()).lastModified(catalog.getRefreshedAt().atZone(ZoneId.systemDefault())).body(catalog.getCategories());
     }
 
     @GetMapping("/brands")
     public ResponseEntity<List<String>> getAllBrands() {
-        List<String> brands = productService.getAllBrands();
-        return ResponseEntity.ok(brands);
+        HomeCatalog catalog = productService.getHomeCatalog();
+        return ResponseEntity.ok().eTag(catalog.getEtag()).lastModified(catalog.getRefreshedAt().atZone(ZoneId.systemDefault())).body(catalog.getBrands());
+    }
+
+    // Everything the home page needs in one response; unchanged snapshots revalidate with 304
+    @GetMapping("/home")
+    public ResponseEntity<HomeCatalog> getHomeCatalog() {
+        HomeCatalog catalog = productService.getHomeCatalog();
+        return ResponseEntity.ok().eTag(catalog.getEtag()).lastModified(catalog.getRefreshedAt().atZone(ZoneId.systemDefault())).body(catalog);
     }
 
     @PostMapping
@@ -89,15 +212,39 @@ public class ProductController {
         return ResponseEntity.ok(product);
     }
 
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(productService.getCacheStats());
+    }
+
     @GetMapping("/featured")
     public ResponseEntity<List<Product>> getFeaturedProducts() {
-        List<Product> products = productService.getFeaturedProducts();
-        return ResponseEntity.ok(products);
+        HomeCatalog catalog = productService.getHomeCatalog();
+        return ResponseEntity.ok().eTag(catalog.getEtag()).lastModified(catalog.getRefreshedAt().atZone(ZoneId.systemDefault())).body(catalog.getFeatured());
     }
 
     @GetMapping("/best-sellers")
     public ResponseEntity<List<Product>> getBestSellers() {
-        List<Product> products = productService.getBestSellingProducts();
-        return ResponseEntity.ok(products);
-     }
+        HomeCatalog catalog = productService.getHomeCatalog();
+        return ResponseEntity.ok().eTag(catalog.getEtag()).lastModified(catalog.getRefreshedAt().atZone(ZoneId.systemDefault())).body(catalog.getBestSellers());
+    }
+
+    @GetMapping("/latest")
+    public ResponseEntity<List<Product>> getLatestProducts() {
+        HomeCatalog catalog = productService.getHomeCatalog();
+        return ResponseEntity.ok().eTag(catalog.getEtag()).lastModified(catalog.getRefreshedAt().atZone(ZoneId.systemDefault())).body(catalog.getLatest());
+    }
+
+    private static Object selectFields(List<ProductSummary> summaries, String fields) {
+        if (fields == null || fields.isBlank()) {
+            return summaries;
+        }
+        Set<String> selected = ProductService.parseSummaryFields(fields);
+        List<Map<String, Object>> values = new ArrayList<>(summaries.size());
+        for (ProductSummary summary : summaries) {
+            values.add(summary.select(selected));
+        }
+        return values;
+    }
 }
@@ -0,0 +1,59 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.service.ProductExportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.Callable;
+
+@RestController
+@RequestMapping("/admin/products/export")
+@CrossOrigin(origins = "*")
+public class ProductExportController {
+
+    private static final String NO_TIMEOUT_INTERCEPTOR = ProductExportController.class.getName() + ".noTimeout";
+
+    private final ProductExportService productExportService;
+
+    public ProductExportController(ProductExportService productExportService) {
+        this.productExportService = productExportService;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean includeInactive,
+            HttpServletRequest request) {
+        
+        if (!ProductExportService.isSupportedFormat(format)) {
+            throw new RuntimeException("Unsupported export format: " + format);
+        }
+        boolean csv = format.equalsIgnoreCase("csv");
+        StreamingResponseBody body = outputStream -> productExportService.export(format, includeInactive, outputStream);
+        
+        // A full catalog export can outlast the global async request timeout, so only this stream runs without one
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(NO_TIMEOUT_INTERCEPTOR, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                if (webRequest instanceof AsyncWebRequest asyncWebRequest) {
+                    asyncWebRequest.setTimeout(-1L);
+                }
+            }
+        });
+        
+        return ResponseEntity.ok()
+                .contentType(csv ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.ProductImportJob;
+import com.ecommerce.service.ProductImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/admin/products/import")
+@CrossOrigin(origins = "*")
+public class ProductImportController {
+
+    private final ProductImportService productImportService;
+
+    public ProductImportController(ProductImportService productImportService) {
+        this.productImportService = productImportService;
+    }
+
+    // Raw CSV or NDJSON request body; returns immediately with a job to poll
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductImportJob> importProducts(@RequestParam(defaultValue = "csv") String format,
+                                                          HttpServletRequest request) throws IOException {
+        ProductImportJob job = productImportService.startImport(request.getInputStream(), format);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductImportJob> getImportJob(@PathVariable String jobId) {
+        ProductImportJob job = productImportService.getJob(jobId);
+        return ResponseEntity.ok(job);
+    }
+}
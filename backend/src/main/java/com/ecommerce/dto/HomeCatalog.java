@@ -0,0 +1,39 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.Product;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Immutable snapshot of the home page collections; lists are unmodifiable copies
+public class HomeCatalog {
+    private final List<Product> featured;
+    private final List<Product> bestSellers;
+    private final List<Product> latest;
+    private final List<String> categories;
+    private final List<String> brands;
+    private final String etag;
+    private final LocalDateTime refreshedAt;
+
+    public HomeCatalog(List<Product> featured, List<Product> bestSellers, List<Product> latest,
+                       List<String> categories, List<String> brands, String etag, LocalDateTime refreshedAt) {
+        this.featured = List.copyOf(featured);
+        this.bestSellers = List.copyOf(bestSellers);
+        this.latest = List.copyOf(latest);
+        this.categories = List.copyOf(categories);
+        this.brands = List.copyOf(brands);
+        this.etag = etag;
+        this.refreshedAt = refreshedAt;
+    }
+
+    // Getters
+    public List<Product> getFeatured() { return featured; }
+    public List<Product> getBestSellers() { return bestSellers; }
+    public List<Product> getLatest() { return latest; }
+    public List<String> getCategories() { return categories; }
+    public List<String> getBrands() { return brands; }
+    @JsonIgnore
+    public String getEtag() { return etag; }
+    public LocalDateTime getRefreshedAt() { return refreshedAt; }
+}
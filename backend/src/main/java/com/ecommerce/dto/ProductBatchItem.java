@@ -0,0 +1,28 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.Product;
+
+public class ProductBatchItem {
+    private Long id;
+    private boolean found;
+    private Product product;
+
+    // Constructors
+    public ProductBatchItem() {}
+
+    public ProductBatchItem(Long id, Product product) {
+        this.id = id;
+        this.found = product != null;
+        this.product = product;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public boolean isFound() { return found; }
+    public Product getProduct() { return product; }
+
+    // Setters
+    public void setId(Long id) { this.id = id; }
+    public void setFound(boolean found) { this.found = found; }
+    public void setProduct(Product product) { this.product = product; }
+}
@@ -0,0 +1,43 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.Product;
+
+import java.util.List;
+
+public class ProductChangesResponse {
+    private List<Product> changed;
+    private List<Long> deletedIds;
+    private long nextSince;
+    private String nextCursor;
+    private boolean hasMore;
+    private boolean resyncRequired;
+
+    // Constructors
+    public ProductChangesResponse() {}
+
+    public ProductChangesResponse(List<Product> changed, List<Long> deletedIds, long nextSince,
+                                  String nextCursor, boolean hasMore, boolean resyncRequired) {
+        this.changed = changed;
+        this.deletedIds = deletedIds;
+        this.nextSince = nextSince;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.resyncRequired = resyncRequired;
+    }
+
+    // Getters
+    public List<Product> getChanged() { return changed; }
+    public List<Long> getDeletedIds() { return deletedIds; }
+    public long getNextSince() { return nextSince; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean isHasMore() { return hasMore; }
+    public boolean isResyncRequired() { return resyncRequired; }
+
+    // Setters
+    public void setChanged(List<Product> changed) { this.changed = changed; }
+    public void setDeletedIds(List<Long> deletedIds) { this.deletedIds = deletedIds; }
+    public void setNextSince(long nextSince) { this.nextSince = nextSince; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+    public void setResyncRequired(boolean resyncRequired) { this.resyncRequired = resyncRequired; }
+}
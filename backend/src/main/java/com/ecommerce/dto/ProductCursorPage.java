@@ -0,0 +1,34 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.Product;
+
+import java.util.List;
+
+public class ProductCursorPage {
+    private List<Product> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private long skipped;
+
+    // Constructors
+    public ProductCursorPage() {}
+
+    public ProductCursorPage(List<Product> content, String nextCursor, boolean hasNext, long skipped) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+        this.skipped = skipped;
+    }
+
+    // Getters
+    public List<Product> getContent() { return content; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean isHasNext() { return hasNext; }
+    public long getSkipped() { return skipped; }
+
+    // Setters
+    public void setContent(List<Product> content) { this.content = content; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+    public void setSkipped(long skipped) { this.skipped = skipped; }
+}
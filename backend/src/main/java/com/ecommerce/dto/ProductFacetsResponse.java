@@ -0,0 +1,41 @@
+package com.ecommerce.dto;
+
+import java.util.Map;
+
+public class ProductFacetsResponse {
+    private int total;
+    private Map<String, Integer> categories;
+    private Map<String, Integer> brands;
+    private Map<String, Integer> priceRanges;
+    private int inStock;
+    private int outOfStock;
+
+    // Constructors
+    public ProductFacetsResponse() {}
+
+    public ProductFacetsResponse(int total, Map<String, Integer> categories, Map<String, Integer> brands,
+                                 Map<String, Integer> priceRanges, int inStock, int outOfStock) {
+        this.total = total;
+        this.categories = categories;
+        this.brands = brands;
+        this.priceRanges = priceRanges;
+        this.inStock = inStock;
+        this.outOfStock = outOfStock;
+    }
+
+    // Getters
+    public int getTotal() { return total; }
+    public Map<String, Integer> getCategories() { return categories; }
+    public Map<String, Integer> getBrands() { return brands; }
+    public Map<String, Integer> getPriceRanges() { return priceRanges; }
+    public int getInStock() { return inStock; }
+    public int getOutOfStock() { return outOfStock; }
+
+    // Setters
+    public void setTotal(int total) { this.total = total; }
+    public void setCategories(Map<String, Integer> categories) { this.categories = categories; }
+    public void setBrands(Map<String, Integer> brands) { this.brands = brands; }
+    public void setPriceRanges(Map<String, Integer> priceRanges) { this.priceRanges = priceRanges; }
+    public void setInStock(int inStock) { this.inStock = inStock; }
+    public void setOutOfStock(int outOfStock) { this.outOfStock = outOfStock; }
+}
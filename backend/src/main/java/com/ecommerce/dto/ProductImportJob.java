@@ -0,0 +1,67 @@
+package com.ecommerce.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Progress of a bulk import; counters are updated by the import worker while clients poll
+public class ProductImportJob {
+
+    private static final int MAX_ERRORS = 100;
+
+    private final String id;
+    private final String format;
+    private final LocalDateTime startedAt;
+    private volatile String status = "QUEUED";
+    private volatile String message;
+    private volatile LocalDateTime finishedAt;
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsInserted = new AtomicLong();
+    private final AtomicLong rowsUpdated = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+    public ProductImportJob(String id, String format) {
+        this.id = id;
+        this.format = format;
+        this.startedAt = LocalDateTime.now();
+    }
+
+    public void reject(long row, String reason) {
+        rowsRejected.incrementAndGet();
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("Row " + row + ": " + reason);
+        }
+    }
+
+    public void finish(String status, String message) {
+        this.status = status;
+        this.message = message;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    // Getters
+    public String getId() { return id; }
+    public String getFormat() { return format; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public String getStatus() { return status; }
+    public String getMessage() { return message; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public long getRowsRead() { return rowsRead.get(); }
+    public long getRowsInserted() { return rowsInserted.get(); }
+    public long getRowsUpdated() { return rowsUpdated.get(); }
+    public long getRowsRejected() { return rowsRejected.get(); }
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    // Counters
+    public void setStatus(String status) { this.status = status; }
+    public void incrementRowsRead() { rowsRead.incrementAndGet(); }
+    public void addRowsInserted(long count) { rowsInserted.addAndGet(count); }
+    public void addRowsUpdated(long count) { rowsUpdated.addAndGet(count); }
+}
@@ -0,0 +1,43 @@
+package com.ecommerce.dto;
+
+import java.math.BigDecimal;
+
+public class ProductImportRow {
+    private String sku;
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private Integer stockQuantity;
+    private String category;
+    private String brand;
+    private String imageUrl;
+    private Boolean featured;
+    private Boolean active;
+
+    // Constructors
+    public ProductImportRow() {}
+
+    // Getters
+    public String getSku() { return sku; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public BigDecimal getPrice() { return price; }
+    public Integer getStockQuantity() { return stockQuantity; }
+    public String getCategory() { return category; }
+    public String getBrand() { return brand; }
+    public String getImageUrl() { return imageUrl; }
+    public Boolean getFeatured() { return featured; }
+    public Boolean getActive() { return active; }
+
+    // Setters
+    public void setSku(String sku) { this.sku = sku; }
+    public void setName(String name) { this.name = name; }
+    public void setDescription(String description) { this.description = description; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+    public void setStockQuantity(Integer stockQuantity) { this.stockQuantity = stockQuantity; }
+    public void setCategory(String category) { this.category = category; }
+    public void setBrand(String brand) { this.brand = brand; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+    public void setFeatured(Boolean featured) { this.featured = featured; }
+    public void setActive(Boolean active) { this.active = active; }
+}
@@ -0,0 +1,73 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.Product;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Lean list view of a product; built straight from a JPQL constructor expression
+public class ProductSummary {
+
+    public static final List<String> FIELDS = List.of("id", "name", "price", "imageUrl", "rating", "reviewCount", "inStock");
+
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private String imageUrl;
+    private BigDecimal rating;
+    private Integer reviewCount;
+    private boolean inStock;
+
+    // Constructors
+    public ProductSummary() {}
+
+    public ProductSummary(Long id, String name, BigDecimal price, String imageUrl,
+                          BigDecimal rating, Integer reviewCount, Integer stockQuantity) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.imageUrl = imageUrl;
+        this.rating = rating;
+        this.reviewCount = reviewCount;
+        this.inStock = stockQuantity != null && stockQuantity > 0;
+    }
+
+    public static ProductSummary from(Product product) {
+        return new ProductSummary(product.getId(), product.getName(), product.getPrice(), product.getImageUrl(),
+                product.getRating(), product.getReviewCount(), product.getStockQuantity());
+    }
+
+    // Only the requested fields, in the canonical order
+    public Map<String, Object> select(Set<String> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (fields.contains("id")) values.put("id", id);
+        if (fields.contains("name")) values.put("name", name);
+        if (fields.contains("price")) values.put("price", price);
+        if (fields.contains("imageUrl")) values.put("imageUrl", imageUrl);
+        if (fields.contains("rating")) values.put("rating", rating);
+        if (fields.contains("reviewCount")) values.put("reviewCount", reviewCount);
+        if (fields.contains("inStock")) values.put("inStock", inStock);
+        return values;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public BigDecimal getPrice() { return price; }
+    public String getImageUrl() { return imageUrl; }
+    public BigDecimal getRating() { return rating; }
+    public Integer getReviewCount() { return reviewCount; }
+    public boolean isInStock() { return inStock; }
+
+    // Setters
+    public void setId(Long id) { this.id = id; }
+    public void setName(String name) { this.name = name; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+    public void setRating(BigDecimal rating) { this.rating = rating; }
+    public void setReviewCount(Integer reviewCount) { this.reviewCount = reviewCount; }
+    public void setInStock(boolean inStock) { this.inStock = inStock; }
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class StockReservation {
+    private String id;
+    private Map<Long, Integer> items;
+    private LocalDateTime expiresAt;
+
+    // Constructors
+    public StockReservation() {}
+
+    public StockReservation(String id, Map<Long, Integer> items, LocalDateTime expiresAt) {
+        this.id = id;
+        this.items = items;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters
+    public String getId() { return id; }
+    public Map<Long, Integer> getItems() { return items; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+
+    // Setters
+    public void setId(String id) { this.id = id; }
+    public void setItems(Map<Long, Integer> items) { this.items = items; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.dto;
+
+public class SuggestionResponse {
+    private String text;
+    private String type;
+    private Long productId;
+
+    // Constructors
+    public SuggestionResponse() {}
+
+    public SuggestionResponse(String text, String type, Long productId) {
+        this.text = text;
+        this.type = type;
+        this.productId = productId;
+    }
+
+    // Getters
+    public String getText() { return text; }
+    public String getType() { return type; }
+    public Long getProductId() { return productId; }
+
+    // Setters
+    public void setText(String text) { this.text = text; }
+    public void setType(String type) { this.type = type; }
+    public void setProductId(Long productId) { this.productId = productId; }
+}
@@ -0,0 +1,47 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Marks a product whose stock is split across counter shards while it is on flash sale
+@Entity
+@Table(name = "product_flash_sales")
+public class FlashSale {
+    
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+    
+    @Column(name = "shard_count", nullable = false)
+    private Integer shardCount;
+    
+    // products.sold_count when the sale started; the shards only count sales made since
+    @Column(name = "base_sold_count", nullable = false)
+    private Integer baseSoldCount;
+    
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    // Constructors
+    public FlashSale() {}
+    
+    public FlashSale(Long productId, Integer shardCount, Integer baseSoldCount) {
+        this.productId = productId;
+        this.shardCount = shardCount;
+        this.baseSoldCount = baseSoldCount;
+        this.startedAt = LocalDateTime.now();
+    }
+    
+    // Getters
+    public Long getProductId() { return productId; }
+    public Integer getShardCount() { return shardCount; }
+    public Integer getBaseSoldCount() { return baseSoldCount; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    
+    // Setters
+    public void setProductId(Long productId) { this.productId = productId; }
+    public void setShardCount(Integer shardCount) { this.shardCount = shardCount; }
+    public void setBaseSoldCount(Integer baseSoldCount) { this.baseSoldCount = baseSoldCount; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+}
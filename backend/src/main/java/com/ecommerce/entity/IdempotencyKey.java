@@ -0,0 +1,64 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// A completed order submission, keyed by the client's Idempotency-Key, so retries get the same order back
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_idempotency_keys_user_key", columnNames = {"user_email", "idempotency_key"})
+}, indexes = {
+    @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+public class IdempotencyKey {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_email", nullable = false)
+    private String userEmail;
+    
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+    
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+    
+    @Column(name = "order_id")
+    private Long orderId;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public IdempotencyKey() {}
+    
+    public IdempotencyKey(String userEmail, String idempotencyKey, String requestHash) {
+        this.userEmail = userEmail;
+        this.idempotencyKey = idempotencyKey;
+        this.requestHash = requestHash;
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    // Getters
+    public Long getId() { return id; }
+    public String getUserEmail() { return userEmail; }
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public String getRequestHash() { return requestHash; }
+    public Long getOrderId() { return orderId; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    
+    // Setters
+    public void setId(Long id) { this.id = id; }
+    public void setUserEmail(String userEmail) { this.userEmail = userEmail; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
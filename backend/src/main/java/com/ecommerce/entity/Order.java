@@ -10,8 +10,10 @@ import java.util.Set;
 @Table(name = "orders")
 public class Order {
     
+    // Pooled sequence ids (one fetch per 50 orders) let Hibernate batch the inserts; IDENTITY cannot
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
     @Column(unique = true, nullable = false)
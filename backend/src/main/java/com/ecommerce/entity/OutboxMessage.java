@@ -0,0 +1,107 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// A side effect (such as an email) recorded in the same transaction as the change that caused it,
+// and delivered afterwards by OutboxService
+@Entity
+@Table(name = "outbox_messages", indexes = {
+    @Index(name = "idx_outbox_messages_status_next_attempt", columnList = "status, next_attempt_at")
+})
+public class OutboxMessage {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private MessageType type;
+    
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+    
+    @Column(nullable = false)
+    private String recipient;
+    
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+    
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+    
+    // Constructors
+    public OutboxMessage() {}
+    
+    public OutboxMessage(MessageType type, Long aggregateId, String recipient, String payload) {
+        this.type = type;
+        this.aggregateId = aggregateId;
+        this.recipient = recipient;
+        this.payload = payload;
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+    
+    // Getters
+    public Long getId() { return id; }
+    public MessageType getType() { return type; }
+    public Long getAggregateId() { return aggregateId; }
+    public String getRecipient() { return recipient; }
+    public String getPayload() { return payload; }
+    public Status getStatus() { return status; }
+    public Integer getAttempts() { return attempts; }
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public String getLastError() { return lastError; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getSentAt() { return sentAt; }
+    
+    // Setters
+    public void setId(Long id) { this.id = id; }
+    public void setType(MessageType type) { this.type = type; }
+    public void setAggregateId(Long aggregateId) { this.aggregateId = aggregateId; }
+    public void setRecipient(String recipient) { this.recipient = recipient; }
+    public void setPayload(String payload) { this.payload = payload; }
+    public void setStatus(Status status) { this.status = status; }
+    public void setAttempts(Integer attempts) { this.attempts = attempts; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
+    
+    public enum MessageType {
+        ORDER_CONFIRMATION_EMAIL
+    }
+    
+    public enum Status {
+        PENDING, PROCESSING, SENT, FAILED
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.math.BigDecimal;
@@ -7,7 +8,19 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", uniqueConstraints = {
+    // Bulk import upserts by SKU, which needs the database to reject duplicates
+    @UniqueConstraint(name = "uk_products_sku", columnNames = "sku")
+}, indexes = {
+    // (sortKey, id) indexes back keyset pagination on the listing sort fields
+    @Index(name = "idx_products_name_id", columnList = "name, id"),
+    @Index(name = "idx_products_price_id", columnList = "price, id"),
+    @Index(name = "idx_products_rating_id", columnList = "rating, id"),
+    @Index(name = "idx_products_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_products_sold_count_id", columnList = "sold_count, id"),
+    // Backs the delta-sync scan over recently changed products
+    @Index(name = "idx_products_updated_at_id", columnList = "updated_at, id")
+})
 public class Product {
     
     @Id
@@ -42,12 +55,15 @@ public class Product {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
+    @JsonIgnore
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL)
     private Set<Review> reviews;
     
+    @JsonIgnore
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL)
     private Set<CartItem> cartItems;
     
+    @JsonIgnore
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL)
     private Set<OrderItem> orderItems;
     
@@ -0,0 +1,45 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+
+// One slice of a flash-sale product's stock. Checkouts decrement a single shard, so they spread their
+// row locks over the shards instead of queueing on the product row.
+@Entity
+@Table(name = "product_stock_shards", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_product_stock_shards_product_shard", columnNames = {"product_id", "shard_no"})
+})
+public class ProductStockShard {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(name = "shard_no", nullable = false)
+    private Integer shardNo;
+    
+    @Column(name = "stock_quantity", nullable = false)
+    private Integer stockQuantity = 0;
+    
+    @Column(name = "sold_count", nullable = false)
+    private Integer soldCount = 0;
+    
+    // Constructors
+    public ProductStockShard() {}
+    
+    // Getters
+    public Long getId() { return id; }
+    public Long getProductId() { return productId; }
+    public Integer getShardNo() { return shardNo; }
+    public Integer getStockQuantity() { return stockQuantity; }
+    public Integer getSoldCount() { return soldCount; }
+    
+    // Setters
+    public void setId(Long id) { this.id = id; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public void setShardNo(Integer shardNo) { this.shardNo = shardNo; }
+    public void setStockQuantity(Integer stockQuantity) { this.stockQuantity = stockQuantity; }
+    public void setSoldCount(Integer soldCount) { this.soldCount = soldCount; }
+}
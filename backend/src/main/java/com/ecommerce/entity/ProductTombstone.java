@@ -0,0 +1,41 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Records a hard-deleted product so delta sync can tell clients to drop it
+@Entity
+@Table(name = "product_tombstones", indexes = {
+    @Index(name = "idx_product_tombstones_deleted_at_id", columnList = "deleted_at, id")
+})
+public class ProductTombstone {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+    
+    // Constructors
+    public ProductTombstone() {}
+    
+    public ProductTombstone(Long productId, LocalDateTime deletedAt) {
+        this.productId = productId;
+        this.deletedAt = deletedAt;
+    }
+    
+    // Getters
+    public Long getId() { return id; }
+    public Long getProductId() { return productId; }
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    
+    // Setters
+    public void setId(Long id) { this.id = id; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+}
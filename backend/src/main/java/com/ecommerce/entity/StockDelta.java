@@ -0,0 +1,48 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// A sale admitted by the reservation ledger but not yet applied to products.stock_quantity. Written in the
+// order's transaction, so a committed sale survives a restart until the reconciler drains it.
+@Entity
+@Table(name = "stock_deltas", indexes = {
+    @Index(name = "idx_stock_deltas_product_id", columnList = "product_id")
+})
+public class StockDelta {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Set when the product's stock could not cover the delta; the drain retries it later
+    @Column(name = "failed_at")
+    private LocalDateTime failedAt;
+    
+    // Constructors
+    public StockDelta() {}
+    
+    // Getters
+    public Long getId() { return id; }
+    public Long getProductId() { return productId; }
+    public Integer getQuantity() { return quantity; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getFailedAt() { return failedAt; }
+    
+    // Setters
+    public void setId(Long id) { this.id = id; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public void setFailedAt(LocalDateTime failedAt) { this.failedAt = failedAt; }
+}
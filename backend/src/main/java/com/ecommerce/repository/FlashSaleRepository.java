@@ -0,0 +1,9 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.FlashSale;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FlashSaleRepository extends JpaRepository<FlashSale, Long> {
+}
@@ -4,12 +4,15 @@ import com.ecommerce.entity.Order;
 import com.ecommerce.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,6 +26,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     List<Order> findTop10ByOrderByCreatedAtDesc();
     
+    // Locks the orders that are still in one of the given statuses, in id order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids AND o.status IN :statuses ORDER BY o.id")
+    List<Order> lockByIdInAndStatusIn(@Param("ids") Collection<Long> ids,
+                                      @Param("statuses") Collection<Order.OrderStatus> statuses);
+    
     @Query("SELECT COUNT(o) FROM Order o WHERE o.createdAt BETWEEN :startDate AND :endDate")
     Long countOrdersBetweenDates(@Param("startDate") LocalDateTime startDate, 
                                 @Param("endDate") LocalDateTime endDate);
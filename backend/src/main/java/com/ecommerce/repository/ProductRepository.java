@@ -1,18 +1,24 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.ProductSummary;
 import com.ecommerce.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
     
     Page<Product> findByActiveTrue(Pageable pageable);
     
@@ -23,6 +29,10 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.active = true AND (p.name LIKE %:searchTerm% OR p.description LIKE %:searchTerm% OR p.category LIKE %:searchTerm% OR p.brand LIKE %:searchTerm%)")
     Page<Product> searchProducts(@Param("searchTerm") String searchTerm, Pageable pageable);
     
+    // Same text match as findProductsWithFilters, so facet counts agree with the listing beside them
+    @Query("SELECT p.id FROM Product p WHERE p.active = true AND (p.name LIKE %:search% OR p.description LIKE %:search%)")
+    List<Long> findListingSearchIds(@Param("search") String search);
+    
     @Query("SELECT p FROM Product p WHERE p.active = true AND p.price BETWEEN :minPrice AND :maxPrice")
     Page<Product> findByPriceRange(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice, Pageable pageable);
     
@@ -53,8 +63,43 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
                                          @Param("maxPrice") BigDecimal maxPrice,
                                          Pageable pageable);
     
+    @Query(value = "SELECT new com.ecommerce.dto.ProductSummary(p.id, p.name, p.price, p.imageUrl, p.rating, p.reviewCount, p.stockQuantity) " +
+           "FROM Product p WHERE p.active = true AND " +
+           "(:search IS NULL OR :search = '' OR p.name LIKE %:search% OR p.description LIKE %:search%) AND " +
+           "(:category IS NULL OR :category = '' OR p.category = :category) AND " +
+           "(:brand IS NULL OR :brand = '' OR p.brand = :brand) AND " +
+           "p.price BETWEEN :minPrice AND :maxPrice",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.active = true AND " +
+           "(:search IS NULL OR :search = '' OR p.name LIKE %:search% OR p.description LIKE %:search%) AND " +
+           "(:category IS NULL OR :category = '' OR p.category = :category) AND " +
+           "(:brand IS NULL OR :brand = '' OR p.brand = :brand) AND " +
+           "p.price BETWEEN :minPrice AND :maxPrice")
+    Page<ProductSummary> findSummariesWithFilters(@Param("search") String search,
+                                                  @Param("category") String category,
+                                                  @Param("brand") String brand,
+                                                  @Param("minPrice") BigDecimal minPrice,
+                                                  @Param("maxPrice") BigDecimal maxPrice,
+                                                  Pageable pageable);
+    
     List<Product> findByFeaturedTrueAndActiveTrueOrderByCreatedAtDesc();
     
+    List<Product> findByActiveTrueOrderByIdAsc();
+    
+    // Includes inactive products, so deactivations reach the columnar snapshot sync
+    List<Product> findByUpdatedAtGreaterThanEqual(LocalDateTime since, Pageable pageable);
+    
+    // Stock edits take the same row lock FlashSaleService.enable does, so a sale cannot start in between
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> lockById(@Param("id") Long id);
+    
+    // Keyset over (updatedAt, id) up to an upper bound; includes inactive products, so deactivations reach
+    // delta-sync clients
+    @Query("SELECT p FROM Product p WHERE (p.updatedAt > :since OR (p.updatedAt = :since AND p.id > :sinceId)) " +
+           "AND p.updatedAt < :until ORDER BY p.updatedAt ASC, p.id ASC")
+    List<Product> findChangedAfter(@Param("since") LocalDateTime since, @Param("sinceId") Long sinceId,
+                                   @Param("until") LocalDateTime until, Pageable pageable);
+    
     List<Product> findTop10ByActiveTrueOrderBySoldCountDesc();
     
     List<Product> findTop10ByActiveTrueOrderByCreatedAtDesc();
@@ -65,6 +110,9 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     List<Product> findByCategoryAndIdNotAndActiveTrueOrderByRatingDesc(String category, Long id, Pageable pageable);
     
+    @Query("SELECT MAX(p.updatedAt) FROM Product p")
+    LocalDateTime findLatestUpdate();
+    
     @Query("SELECT AVG(CAST(r.rating AS double)) FROM Review r WHERE r.product.id = :productId")
     Double calculateAverageRating(@Param("productId") Long productId);
 }
@@ -0,0 +1,48 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.Product;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {}
+
+    // Same filter as ProductRepository.findProductsWithFilters
+    public static Specification<Product> withFilters(String search, String category, String brand,
+                                                     BigDecimal minPrice, BigDecimal maxPrice) {
+        return (root, query, cb) -> {
+            Predicate predicate = cb.isTrue(root.get("active"));
+            if (search != null && !search.isEmpty()) {
+                String pattern = "%" + search + "%";
+                predicate = cb.and(predicate, cb.or(cb.like(root.get("name"), pattern),
+                        cb.like(root.get("description"), pattern)));
+            }
+            if (category != null && !category.isEmpty()) {
+                predicate = cb.and(predicate, cb.equal(root.get("category"), category));
+            }
+            if (brand != null && !brand.isEmpty()) {
+                predicate = cb.and(predicate, cb.equal(root.get("brand"), brand));
+            }
+            return cb.and(predicate, cb.between(root.get("price"), minPrice, maxPrice));
+        };
+    }
+
+    // Seek predicate: rows strictly after (sortValue, id) in (sortField, id) order
+    public static <Y extends Comparable<? super Y>> Specification<Product> after(String sortField, boolean descending,
+                                                                                 Y sortValue, Long id) {
+        return (root, query, cb) -> {
+            Path<Y> key = root.get(sortField);
+            Path<Long> idPath = root.get("id");
+            if (descending) {
+                return cb.or(cb.lessThan(key, sortValue),
+                        cb.and(cb.equal(key, sortValue), cb.lessThan(idPath, id)));
+            }
+            return cb.or(cb.greaterThan(key, sortValue),
+                    cb.and(cb.equal(key, sortValue), cb.greaterThan(idPath, id)));
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.ProductTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductTombstoneRepository extends JpaRepository<ProductTombstone, Long> {
+    
+    // Keyset over (deletedAt, id), matching idx_product_tombstones_deleted_at_id
+    @Query("SELECT t FROM ProductTombstone t WHERE (t.deletedAt > :since OR (t.deletedAt = :since AND t.id > :sinceId)) " +
+           "AND t.deletedAt < :until ORDER BY t.deletedAt ASC, t.id ASC")
+    List<ProductTombstone> findDeletedAfter(@Param("since") LocalDateTime since, @Param("sinceId") Long sinceId,
+                                            @Param("until") LocalDateTime until, Pageable pageable);
+    
+    @Query("SELECT MAX(t.deletedAt) FROM ProductTombstone t")
+    LocalDateTime findLatestDeletion();
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProductTombstone t WHERE t.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
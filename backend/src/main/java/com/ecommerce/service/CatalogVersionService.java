@@ -0,0 +1,68 @@
+package com.ecommerce.service;
+
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.ProductTombstoneRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Catalog-wide change stamp: epoch millis of the latest products.updated_at or tombstone deleted_at.
+// It is read from the database, so every instance derives the same stamp and sees writes made on the
+// others, bulk SQL stock updates included. The value is cached briefly; local writes invalidate it.
+@Service
+public class CatalogVersionService {
+
+    private final ProductRepository productRepository;
+    private final ProductTombstoneRepository productTombstoneRepository;
+
+    @Value("${catalog.version.cache-ms:1000}")
+    private long cacheMs;
+
+    // Bumped by local writes; a stamp loaded under an older generation is reloaded
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile long changeStamp;
+    private volatile long loadedAt;
+    private volatile long loadedGeneration = -1;
+
+    public CatalogVersionService(ProductRepository productRepository,
+                                 ProductTombstoneRepository productTombstoneRepository) {
+        this.productRepository = productRepository;
+        this.productTombstoneRepository = productTombstoneRepository;
+    }
+
+    // Called after product writes on this instance so the next read picks them up without waiting for the cache
+    public void bump() {
+        generation.incrementAndGet();
+    }
+
+    public long getChangeStamp() {
+        if (loadedGeneration != generation.get() || System.currentTimeMillis() - loadedAt >= cacheMs) {
+            reload();
+        }
+        return changeStamp;
+    }
+
+    public String getEtag() {
+        return "\"catalog-" + Long.toString(getChangeStamp(), 36) + "\"";
+    }
+
+    private synchronized void reload() {
+        long currentGeneration = generation.get();
+        long now = System.currentTimeMillis();
+        if (loadedGeneration == currentGeneration && now - loadedAt < cacheMs) {
+            return;
+        }
+        changeStamp = Math.max(toMillis(productRepository.findLatestUpdate()),
+                toMillis(productTombstoneRepository.findLatestDeletion()));
+        loadedAt = now;
+        loadedGeneration = currentGeneration;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+    }
+}
@@ -0,0 +1,418 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.ProductTombstoneRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+@Service
+public class ColumnarCatalogService {
+
+    private static final List<String> SORT_FIELDS = List.of("name", "price", "rating", "createdAt", "soldCount");
+
+    // Above this many patched rows a batch re-sorts the two stats orders instead of moving rows one by one
+    private static final int MAX_REPOSITIONED_ROWS = 32;
+
+    private final ProductRepository productRepository;
+    private final ProductTombstoneRepository productTombstoneRepository;
+    private final CatalogVersionService catalogVersionService;
+
+    @Value("${catalog.columnar.enabled:false}")
+    private boolean enabled;
+
+    // Backstop for changes the shared stamp cannot reveal
+    @Value("${catalog.columnar.max-age-ms:300000}")
+    private long maxAgeMs;
+
+    // updated_at is stamped before commit, so each sync re-reads this far back to catch late commits
+    @Value("${catalog.columnar.commit-lag-ms:10000}")
+    private long commitLagMs;
+
+    // A sync that finds more changed rows than this rebuilds instead
+    @Value("${catalog.columnar.max-sync-rows:1000}")
+    private int maxSyncRows;
+
+    private volatile ColumnarSnapshot snapshot;
+    private volatile boolean stale = true;
+
+    // Catalog change stamp read just before the snapshot was loaded or last synced, and when the full load started
+    private volatile long snapshotStamp;
+    private volatile long snapshotLoadedAt;
+    // Rows updated from here on may not be in the snapshot yet; the latest deletion it has seen
+    private LocalDateTime syncedFrom;
+    private LocalDateTime deletionSeen;
+    private long stampMovedAt;
+
+    // Immutable once built: row i of every column describes products[i], rows ordered by id
+    private static class ColumnarSnapshot {
+        private final Product[] products;
+        private final long[] ids;
+        private final long[] priceCents;
+        private final double[] ratings;
+        private final int[] soldCounts;
+        private final long[] createdAt;
+        private final int[] categoryCodes;
+        private final int[] brandCodes;
+        private final Map<String, Integer> categoryDictionary;
+        private final Map<String, Integer> brandDictionary;
+        private final String[] names;
+        private final String[] descriptions;
+        // Row order for each sort field, ascending with id as the tie-breaker
+        private final Map<String, int[]> sortPermutations;
+
+        private ColumnarSnapshot(List<Product> source) {
+            int rows = source.size();
+            products = source.toArray(new Product[0]);
+            ids = new long[rows];
+            priceCents = new long[rows];
+            ratings = new double[rows];
+            soldCounts = new int[rows];
+            createdAt = new long[rows];
+            categoryCodes = new int[rows];
+            brandCodes = new int[rows];
+            names = new String[rows];
+            descriptions = new String[rows];
+            categoryDictionary = new HashMap<>();
+            brandDictionary = new HashMap<>();
+
+            for (int row = 0; row < rows; row++) {
+                Product product = products[row];
+                ids[row] = product.getId();
+                priceCents[row] = cents(product);
+                ratings[row] = rating(product);
+                soldCounts[row] = soldCount(product);
+                createdAt[row] = product.getCreatedAt() != null
+                        ? product.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli() : Long.MIN_VALUE;
+                categoryCodes[row] = encode(categoryDictionary, product.getCategory());
+                brandCodes[row] = encode(brandDictionary, product.getBrand());
+                names[row] = lower(product.getName());
+                descriptions[row] = lower(product.getDescription());
+            }
+
+            sortPermutations = new HashMap<>();
+            sortPermutations.put("name", permutation(rows, (a, b) -> compareNullsFirst(names[a], names[b])));
+            sortPermutations.put("price", permutation(rows, (a, b) -> Long.compare(priceCents[a], priceCents[b])));
+            sortPermutations.put("rating", permutation(rows, byRating()));
+            sortPermutations.put("createdAt", permutation(rows, (a, b) -> Long.compare(createdAt[a], createdAt[b])));
+            sortPermutations.put("soldCount", permutation(rows, bySoldCount()));
+        }
+
+        // Copy of base with the stats of the patched rows replaced. Only the stats columns and their two sort
+        // orders are copied, once per batch; everything else is shared with base, which readers may still be using.
+        private ColumnarSnapshot(ColumnarSnapshot base, Map<Integer, Product> patches) {
+            products = base.products.clone();
+            ids = base.ids;
+            priceCents = base.priceCents;
+            ratings = base.ratings.clone();
+            soldCounts = base.soldCounts.clone();
+            createdAt = base.createdAt;
+            categoryCodes = base.categoryCodes;
+            brandCodes = base.brandCodes;
+            categoryDictionary = base.categoryDictionary;
+            brandDictionary = base.brandDictionary;
+            names = base.names;
+            descriptions = base.descriptions;
+
+            for (Map.Entry<Integer, Product> patch : patches.entrySet()) {
+                int row = patch.getKey();
+                products[row] = patch.getValue();
+                ratings[row] = rating(patch.getValue());
+                soldCounts[row] = soldCount(patch.getValue());
+            }
+
+            sortPermutations = new HashMap<>(base.sortPermutations);
+            if (patches.size() <= MAX_REPOSITIONED_ROWS) {
+                sortPermutations.put("rating", reposition(base.sortPermutations.get("rating"), patches.keySet(), byRating()));
+                sortPermutations.put("soldCount", reposition(base.sortPermutations.get("soldCount"), patches.keySet(), bySoldCount()));
+            } else {
+                sortPermutations.put("rating", permutation(products.length, byRating()));
+                sortPermutations.put("soldCount", permutation(products.length, bySoldCount()));
+            }
+        }
+
+        private Comparator<Integer> byRating() {
+            return (a, b) -> Double.compare(ratings[a], ratings[b]);
+        }
+
+        private Comparator<Integer> bySoldCount() {
+            return (a, b) -> Integer.compare(soldCounts[a], soldCounts[b]);
+        }
+
+        // Stats writes leave these columns alone; anything else needs a full rebuild
+        private boolean sameStructure(int row, Product product) {
+            return product.isActive()
+                    && priceCents[row] == cents(product)
+                    && Objects.equals(names[row], lower(product.getName()))
+                    && Objects.equals(descriptions[row], lower(product.getDescription()))
+                    && codeMatches(categoryDictionary, categoryCodes[row], product.getCategory())
+                    && codeMatches(brandDictionary, brandCodes[row], product.getBrand());
+        }
+
+        private static boolean codeMatches(Map<String, Integer> dictionary, int code, String value) {
+            return value == null ? code == -1 : Objects.equals(dictionary.get(value), code);
+        }
+
+        // Takes the moved rows out of an order sorted by comparator and inserts each at its new place, with row
+        // index as the tie-breaker
+        private static int[] reposition(int[] order, Set<Integer> moved, Comparator<Integer> comparator) {
+            int[] result = new int[order.length];
+            int size = 0;
+            for (int current : order) {
+                if (!moved.contains(current)) {
+                    result[size++] = current;
+                }
+            }
+            for (int row : moved) {
+                int low = 0;
+                int high = size;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    int compared = comparator.compare(result[mid], row);
+                    if (compared < 0 || (compared == 0 && result[mid] < row)) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                System.arraycopy(result, low, result, low + 1, size - low);
+                result[low] = row;
+                size++;
+            }
+            return result;
+        }
+
+        // Rows sort by id already, so a stable sort keeps id as the tie-breaker
+        private int[] permutation(int rows, Comparator<Integer> comparator) {
+            Integer[] order = new Integer[rows];
+            for (int row = 0; row < rows; row++) {
+                order[row] = row;
+            }
+            Arrays.sort(order, comparator);
+            int[] result = new int[rows];
+            for (int row = 0; row < rows; row++) {
+                result[row] = order[row];
+            }
+            return result;
+        }
+
+        private static long cents(Product product) {
+            return product.getPrice() != null
+                    ? product.getPrice().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() : 0;
+        }
+
+        private static double rating(Product product) {
+            return product.getRating() != null ? product.getRating().doubleValue() : 0.0;
+        }
+
+        private static int soldCount(Product product) {
+            return product.getSoldCount() != null ? product.getSoldCount() : 0;
+        }
+
+        // Code -1 stands for a missing value and never matches a filter
+        private static int encode(Map<String, Integer> dictionary, String value) {
+            if (value == null) {
+                return -1;
+            }
+            return dictionary.computeIfAbsent(value, v -> dictionary.size());
+        }
+    }
+
+    public ColumnarCatalogService(ProductRepository productRepository,
+                                  ProductTombstoneRepository productTombstoneRepository,
+                                  CatalogVersionService catalogVersionService) {
+        this.productRepository = productRepository;
+        this.productTombstoneRepository = productTombstoneRepository;
+        this.catalogVersionService = catalogVersionService;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static boolean isSupportedSort(String sortBy) {
+        return SORT_FIELDS.contains(sortBy);
+    }
+
+    // Structural product writes only flag the snapshot; the scheduler coalesces bursts into one rebuild and swap.
+    // Stock, sales and rating writes need no call: they move the catalog stamp and are synced in batches.
+    public void markStale() {
+        stale = true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    // Local structural writes flag the snapshot directly. Everything else, including writes made on other
+    // instances, imports and bulk stock SQL, shows up as a move of the shared catalog stamp and is synced
+    // from the rows updated since the last sync. Syncing continues for one commit lag after the stamp
+    // stops moving, since a late commit need not move it again.
+    @Scheduled(fixedDelayString = "${catalog.columnar.refresh-interval-ms:1000}")
+    public synchronized void refreshIfNeeded() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (stale || snapshot == null || now - snapshotLoadedAt >= maxAgeMs) {
+            refresh();
+            return;
+        }
+        long stamp = catalogVersionService.getChangeStamp();
+        if (stamp != snapshotStamp) {
+            stampMovedAt = now;
+        }
+        if (now - stampMovedAt < commitLagMs + 1000) {
+            syncChanges(stamp);
+        }
+    }
+
+    public synchronized void refresh() {
+        stale = false;
+        // Stamp first, so a write that lands during the load moves it again and triggers a sync
+        long stamp = catalogVersionService.getChangeStamp();
+        long loadedAt = System.currentTimeMillis();
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime latestDeletion = productTombstoneRepository.findLatestDeletion();
+        ColumnarSnapshot built = new ColumnarSnapshot(productRepository.findByActiveTrueOrderByIdAsc());
+        snapshot = built;
+        snapshotStamp = stamp;
+        snapshotLoadedAt = loadedAt;
+        syncedFrom = startedAt;
+        deletionSeen = latestDeletion;
+        System.out.println("Columnar catalog snapshot built with " + built.products.length + " products");
+    }
+
+    // Patches the stats of every product updated since the last sync into one copy of the snapshot. A deletion,
+    // a new or reactivated product, a structural change or a large batch rebuilds instead.
+    private void syncChanges(long stamp) {
+        ColumnarSnapshot current = snapshot;
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime from = syncedFrom.minusNanos(commitLagMs * 1_000_000);
+        if (!Objects.equals(productTombstoneRepository.findLatestDeletion(), deletionSeen)) {
+            refresh();
+            return;
+        }
+        List<Product> changed = productRepository.findByUpdatedAtGreaterThanEqual(from, PageRequest.of(0, maxSyncRows + 1));
+        if (changed.size() > maxSyncRows) {
+            refresh();
+            return;
+        }
+
+        Map<Integer, Product> patches = new TreeMap<>();
+        for (Product product : changed) {
+            int row = Arrays.binarySearch(current.ids, product.getId());
+            if (row < 0 && !product.isActive()) {
+                continue;
+            }
+            if (row < 0 || !current.sameStructure(row, product)) {
+                refresh();
+                return;
+            }
+            if (current.ratings[row] != ColumnarSnapshot.rating(product)
+                    || current.soldCounts[row] != ColumnarSnapshot.soldCount(product)
+                    || !Objects.equals(current.products[row].getStockQuantity(), product.getStockQuantity())
+                    || !Objects.equals(current.products[row].getUpdatedAt(), product.getUpdatedAt())) {
+                patches.put(row, product);
+            }
+        }
+        if (!patches.isEmpty()) {
+            snapshot = new ColumnarSnapshot(current, patches);
+        }
+        snapshotStamp = stamp;
+        syncedFrom = startedAt;
+    }
+
+    // Empty when the snapshot cannot answer (disabled, not built yet, or an unsupported sort field),
+    // in which case the caller falls back to the database query
+    public Optional<Page<Product>> query(String search, String category, String brand,
+                                         BigDecimal minPrice, BigDecimal maxPrice,
+                                         String sortBy, boolean descending, Pageable pageable) {
+        ColumnarSnapshot current = snapshot;
+        if (!enabled || current == null || !isSupportedSort(sortBy)) {
+            return Optional.empty();
+        }
+
+        int rows = current.products.length;
+        boolean[] matches = new boolean[rows];
+        Arrays.fill(matches, true);
+
+        // One tight loop per predicate over a primitive column
+        long minCents = minPrice.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue();
+        long maxCents = maxPrice.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue();
+        long[] prices = current.priceCents;
+        for (int row = 0; row < rows; row++) {
+            matches[row] = prices[row] >= minCents && prices[row] <= maxCents;
+        }
+        if (category != null && !category.isEmpty()) {
+            filterCode(matches, current.categoryCodes, current.categoryDictionary.get(category));
+        }
+        if (brand != null && !brand.isEmpty()) {
+            filterCode(matches, current.brandCodes, current.brandDictionary.get(brand));
+        }
+        if (search != null && !search.isEmpty()) {
+            String needle = search.toLowerCase();
+            for (int row = 0; row < rows; row++) {
+                if (matches[row]) {
+                    matches[row] = contains(current.names[row], needle) || contains(current.descriptions[row], needle);
+                }
+            }
+        }
+
+        // Walk the precomputed order, counting every match and keeping only the requested page
+        int[] order = current.sortPermutations.get(sortBy);
+        long offset = pageable.getOffset();
+        int pageSize = pageable.getPageSize();
+        List<Product> content = new ArrayList<>(Math.min(pageSize, rows));
+        long total = 0;
+        for (int i = 0; i < rows; i++) {
+            int row = order[descending ? rows - 1 - i : i];
+            if (!matches[row]) {
+                continue;
+            }
+            if (total >= offset && content.size() < pageSize) {
+                content.add(current.products[row]);
+            }
+            total++;
+        }
+        return Optional.of(new PageImpl<>(content, pageable, total));
+    }
+
+    private static void filterCode(boolean[] matches, int[] codes, Integer code) {
+        int wanted = code != null ? code : -2;
+        for (int row = 0; row < codes.length; row++) {
+            matches[row] &= codes[row] == wanted;
+        }
+    }
+
+    private static boolean contains(String value, String needle) {
+        return value != null && value.contains(needle);
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase() : null;
+    }
+
+    private static int compareNullsFirst(String a, String b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        return a.compareTo(b);
+    }
+}
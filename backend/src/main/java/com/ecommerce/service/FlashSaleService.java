@@ -0,0 +1,431 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.FlashSale;
+import com.ecommerce.repository.FlashSaleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Flash-sale mode for designated hot products. Their stock is split across counter-shard rows so concurrent
+// checkouts lock different rows instead of queueing on the product row. The shard totals refresh a per-product
+// admission gate every second, which rejects checkouts beyond the remaining stock before they reach the
+// database; they are written back to products.stock_quantity / sold_count on a slower interval, since every
+// write-back moves the catalog version and invalidates the cached listings.
+@Service
+public class FlashSaleService {
+
+    private static final int MAX_SHARDS = 256;
+
+    // Single-shard attempts before a line falls back to taking from several shards at once
+    private static final int MAX_PROBES = 4;
+
+    private static final String TAKE_SQL =
+            "UPDATE product_stock_shards SET stock_quantity = stock_quantity - ?, sold_count = sold_count + ? " +
+            "WHERE product_id = ? AND shard_no = ? AND stock_quantity >= ?";
+
+    private static final String LOCK_SHARDS_SQL =
+            "SELECT shard_no, stock_quantity, sold_count FROM product_stock_shards WHERE product_id = ? " +
+            "ORDER BY shard_no FOR UPDATE";
+
+    private static final String DRAIN_SQL =
+            "UPDATE product_stock_shards SET stock_quantity = stock_quantity - ?, sold_count = sold_count + ? " +
+            "WHERE product_id = ? AND shard_no = ?";
+
+    private static final String RESTORE_SQL =
+            "UPDATE product_stock_shards SET stock_quantity = stock_quantity + ?, sold_count = sold_count - ? " +
+            "WHERE product_id = ? AND shard_no = ?";
+
+    private static final String INSERT_SHARD_SQL =
+            "INSERT INTO product_stock_shards (product_id, shard_no, stock_quantity, sold_count) VALUES (?, ?, ?, 0)";
+
+    // One consistent read of every sale (or the sales of the products in the %s filter), its product row
+    // and its shard totals
+    private static final String TOTALS_SQL =
+            "SELECT f.product_id, f.shard_count, f.base_sold_count, p.name, p.stock_quantity, p.sold_count, " +
+            "COALESCE(SUM(s.stock_quantity), 0) AS shard_stock, COALESCE(SUM(s.sold_count), 0) AS shard_sold " +
+            "FROM product_flash_sales f JOIN products p ON p.id = f.product_id " +
+            "LEFT JOIN product_stock_shards s ON s.product_id = f.product_id %s" +
+            "GROUP BY f.product_id, f.shard_count, f.base_sold_count, p.name, p.stock_quantity, p.sold_count";
+
+    // Compare-and-set on the values read above, so a rollup never overwrites a sale that just ended
+    private static final String ROLLUP_SQL =
+            "UPDATE products SET stock_quantity = ?, sold_count = ?, updated_at = ? " +
+            "WHERE id = ? AND stock_quantity = ? AND sold_count = ?";
+
+    private final FlashSaleRepository flashSaleRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductService productService;
+
+    // Shards only help the direct checkout path; the reservation ledger already keeps product rows
+    // off the per-order write path and applies its deltas to them directly
+    @Value("${inventory.reservations.enabled:false}")
+    private boolean reservationsEnabled;
+
+    @Value("${flash-sale.default-shards:16}")
+    private int defaultShards;
+
+    @Value("${flash-sale.catalog-sync-interval-ms:15000}")
+    private long catalogSyncIntervalMs;
+
+    private volatile long lastCatalogSync;
+
+    // This node's view of the active sales, refreshed by every rollup
+    private final Map<Long, Gate> gates = new ConcurrentHashMap<>();
+
+    private static class Gate {
+        private final Long productId;
+        private final String name;
+        private final int shardCount;
+        // Stock this node may still admit, and what it admitted that has not committed or rolled back yet.
+        // Other nodes sell from the same shards, so this is an estimate; the shard UPDATE is the real check.
+        private final AtomicLong remaining = new AtomicLong();
+        private final AtomicLong inFlight = new AtomicLong();
+        private volatile int stockQuantity;
+        private volatile int soldCount;
+
+        public Gate(Long productId, String name, int shardCount) {
+            this.productId = productId;
+            this.name = name;
+            this.shardCount = shardCount;
+        }
+    }
+
+    public FlashSaleService(FlashSaleRepository flashSaleRepository, JdbcTemplate jdbcTemplate,
+                            ProductService productService) {
+        this.flashSaleRepository = flashSaleRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.productService = productService;
+    }
+
+    // Removes the flash-sale lines from the given quantities and returns them
+    public Map<Long, Integer> extractActive(Map<Long, Integer> quantities) {
+        Map<Long, Integer> flashSaleLines = new TreeMap<>();
+        if (gates.isEmpty()) {
+            return flashSaleLines;
+        }
+        quantities.entrySet().removeIf(line -> {
+            if (gates.containsKey(line.getKey())) {
+                flashSaleLines.put(line.getKey(), line.getValue());
+                return true;
+            }
+            return false;
+        });
+        return flashSaleLines;
+    }
+
+    // Takes every line from its shards inside the caller's transaction. A short line throws, and the
+    // rollback undoes the lines that did succeed. Returns the lines whose sale has ended, possibly on
+    // another node since this node's last rollup; the caller sells those from the product rows.
+    public Map<Long, Integer> decrementStock(Map<Long, Integer> quantities) {
+        Map<Long, Integer> ended = new TreeMap<>();
+        if (quantities.isEmpty()) {
+            return ended;
+        }
+        Map<Long, Integer> lines = new TreeMap<>(quantities);
+        // Lines handed over by the product-row path may be for a sale this node has not seen start yet
+        loadMissingGates(lines.keySet());
+
+        // Admission first: a line this node already knows is short never reaches the database
+        Map<Gate, Integer> admitted = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+                if (line.getValue() == null || line.getValue() <= 0) {
+                    throw new RuntimeException("Invalid quantity for product: " + line.getKey());
+                }
+                Gate gate = gates.get(line.getKey());
+                if (gate == null) {
+                    ended.put(line.getKey(), line.getValue());
+                    continue;
+                }
+                admit(gate, line.getValue());
+                admitted.put(gate, line.getValue());
+            }
+        } catch (RuntimeException e) {
+            settle(admitted, false);
+            throw e;
+        }
+
+        settleOnCompletion(admitted);
+        for (Map.Entry<Gate, Integer> line : admitted.entrySet()) {
+            if (!take(line.getKey(), line.getValue())) {
+                ended.put(line.getKey().productId, line.getValue());
+            }
+        }
+        return ended;
+    }
+
+    // Puts the flash-sale items of cancelled or returned orders back into a random shard of each product.
+    // Runs after InventoryService.restoreStock, which locked the product rows and skipped these products.
+    public void restoreStock(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(orderIds.size(), "?"));
+        List<Object[]> batch = jdbcTemplate.query(
+                "SELECT oi.product_id, f.shard_count, SUM(oi.quantity) AS quantity FROM order_items oi " +
+                "JOIN product_flash_sales f ON f.product_id = oi.product_id WHERE oi.order_id IN (" + placeholders + ") " +
+                "GROUP BY oi.product_id, f.shard_count",
+                (rs, rowNum) -> new Object[]{rs.getInt("quantity"), rs.getInt("quantity"), rs.getLong("product_id"),
+                        ThreadLocalRandom.current().nextInt(rs.getInt("shard_count"))},
+                orderIds.toArray());
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(RESTORE_SQL, batch);
+        }
+    }
+
+    @Transactional
+    public FlashSale enable(Long productId, Integer shardCount) {
+        if (reservationsEnabled) {
+            throw new RuntimeException("Flash-sale mode is not available while inventory reservations are enabled");
+        }
+        int shards = shardCount != null ? shardCount : defaultShards;
+        if (shards < 1 || shards > MAX_SHARDS) {
+            throw new RuntimeException("Shard count must be between 1 and " + MAX_SHARDS);
+        }
+
+        // Locking the product row keeps direct checkouts out while its stock is split
+        List<int[]> product = jdbcTemplate.query(
+                "SELECT stock_quantity, sold_count FROM products WHERE id = ? FOR UPDATE",
+                (rs, rowNum) -> new int[]{rs.getInt("stock_quantity"), rs.getInt("sold_count")}, productId);
+        if (product.isEmpty()) {
+            throw new RuntimeException("Product not found");
+        }
+        if (flashSaleRepository.existsById(productId)) {
+            throw new RuntimeException("Product is already on flash sale");
+        }
+        int stock = product.get(0)[0];
+        FlashSale sale = flashSaleRepository.save(new FlashSale(productId, shards, product.get(0)[1]));
+
+        // Even split; the first shards take the remainder
+        List<Object[]> batch = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            batch.add(new Object[]{productId, shard, stock / shards + (shard < stock % shards ? 1 : 0)});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SHARD_SQL, batch);
+
+        runAfterCommit(this::rollup);
+        return sale;
+    }
+
+    // Folds the shards back into the product row and returns the product to the normal checkout path
+    @Transactional
+    public void disable(Long productId) {
+        FlashSale sale = flashSaleRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product is not on flash sale"));
+
+        // Product row before shards, the same order stock restoration locks them in
+        jdbcTemplate.queryForList("SELECT id FROM products WHERE id = ? FOR UPDATE", Long.class, productId);
+
+        List<int[]> shards = jdbcTemplate.query(LOCK_SHARDS_SQL,
+                (rs, rowNum) -> new int[]{rs.getInt("shard_no"), rs.getInt("stock_quantity"), rs.getInt("sold_count")},
+                productId);
+        int stock = 0;
+        int sold = 0;
+        for (int[] shard : shards) {
+            stock += shard[1];
+            sold += shard[2];
+        }
+        jdbcTemplate.update("UPDATE products SET stock_quantity = ?, sold_count = ?, updated_at = ? WHERE id = ?",
+                stock, sale.getBaseSoldCount() + sold, Timestamp.valueOf(LocalDateTime.now()), productId);
+        jdbcTemplate.update("DELETE FROM product_stock_shards WHERE product_id = ?", productId);
+        flashSaleRepository.delete(sale);
+
+        runAfterCommit(() -> {
+            gates.remove(productId);
+            productService.refreshStockStats(List.of(productId));
+        });
+    }
+
+    public List<Map<String, Object>> getFlashSales() {
+        List<Map<String, Object>> sales = new ArrayList<>();
+        for (Gate gate : new TreeMap<>(gates).values()) {
+            Map<String, Object> sale = new LinkedHashMap<>();
+            sale.put("productId", gate.productId);
+            sale.put("name", gate.name);
+            sale.put("shards", gate.shardCount);
+            sale.put("stockQuantity", gate.stockQuantity);
+            sale.put("soldCount", gate.soldCount);
+            sale.put("admittable", Math.max(0, gate.remaining.get()));
+            sales.add(sale);
+        }
+        return sales;
+    }
+
+    // Refreshes this node's gates and view of which products are on sale, and once per catalog sync interval
+    // sums the shards into the product rows for listings, search and stock checks. Synchronized because
+    // enable() also runs it after commit, alongside the scheduled run.
+    @Scheduled(fixedDelayString = "${flash-sale.rollup-interval-ms:1000}")
+    public synchronized void rollup() {
+        long started = System.currentTimeMillis();
+        boolean syncCatalog = started - lastCatalogSync >= catalogSyncIntervalMs;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>();
+        List<Long> changed = new ArrayList<>();
+        Set<Long> active = new HashSet<>();
+
+        jdbcTemplate.query(String.format(TOTALS_SQL, ""), rs -> {
+            Long productId = rs.getLong("product_id");
+            int stock = rs.getInt("shard_stock");
+            int sold = rs.getInt("base_sold_count") + rs.getInt("shard_sold");
+            int rowStock = rs.getInt("stock_quantity");
+            int rowSold = rs.getInt("sold_count");
+            if (syncCatalog && (stock != rowStock || sold != rowSold)) {
+                batch.add(new Object[]{stock, sold, now, productId, rowStock, rowSold});
+                changed.add(productId);
+            }
+
+            refreshGate(productId, rs.getString("name"), rs.getInt("shard_count"), stock, sold);
+            active.add(productId);
+        });
+
+        gates.keySet().retainAll(active);
+        if (syncCatalog) {
+            lastCatalogSync = started;
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(ROLLUP_SQL, batch);
+            productService.refreshStockStats(changed);
+        }
+    }
+
+    private static void admit(Gate gate, int quantity) {
+        long current;
+        do {
+            current = gate.remaining.get();
+            if (current < quantity) {
+                throw new RuntimeException("Product " + gate.name + " is sold out");
+            }
+        } while (!gate.remaining.compareAndSet(current, current - quantity));
+        gate.inFlight.addAndGet(quantity);
+    }
+
+    // Creates gates for the given products that are on sale but not yet known to this node
+    private void loadMissingGates(Collection<Long> productIds) {
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            if (!gates.containsKey(productId)) {
+                missing.add(productId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(missing.size(), "?"));
+        jdbcTemplate.query(String.format(TOTALS_SQL, "WHERE f.product_id IN (" + placeholders + ") "), rs -> {
+            refreshGate(rs.getLong("product_id"), rs.getString("name"), rs.getInt("shard_count"),
+                    rs.getInt("shard_stock"), rs.getInt("base_sold_count") + rs.getInt("shard_sold"));
+        }, missing.toArray());
+    }
+
+    // Gates are only ever created here, through computeIfAbsent, so the rollup and checkouts loading a gate
+    // share one per product and its in-flight count is never split across copies
+    private void refreshGate(Long productId, String name, int shardCount, int stock, int sold) {
+        Gate gate = gates.computeIfAbsent(productId, id -> new Gate(id, name, shardCount));
+        gate.stockQuantity = stock;
+        gate.soldCount = sold;
+        gate.remaining.set(stock - gate.inFlight.get());
+    }
+
+    // Starts at a random shard so concurrent checkouts spread over the rows. Returns false when the sale
+    // has ended and the shards are gone.
+    private boolean take(Gate gate, int quantity) {
+        int start = ThreadLocalRandom.current().nextInt(gate.shardCount);
+        int probes = Math.min(gate.shardCount, MAX_PROBES);
+        for (int i = 0; i < probes; i++) {
+            int shard = (start + i) % gate.shardCount;
+            if (jdbcTemplate.update(TAKE_SQL, quantity, quantity, gate.productId, shard, quantity) == 1) {
+                return true;
+            }
+        }
+        return takeAcrossShards(gate, quantity);
+    }
+
+    // Near the end of the stock no single shard may cover the line: lock them all in order and take from several.
+    // No shard rows at all means another node ended the sale, which deletes them in the same transaction.
+    private boolean takeAcrossShards(Gate gate, int quantity) {
+        List<int[]> shards = jdbcTemplate.query(LOCK_SHARDS_SQL,
+                (rs, rowNum) -> new int[]{rs.getInt("shard_no"), rs.getInt("stock_quantity")}, gate.productId);
+        if (shards.isEmpty()) {
+            gates.remove(gate.productId, gate);
+            return false;
+        }
+        int total = 0;
+        for (int[] shard : shards) {
+            total += shard[1];
+        }
+        if (total < quantity) {
+            gate.remaining.set(total - gate.inFlight.get());
+            throw new RuntimeException("Product " + gate.name + " is sold out");
+        }
+
+        List<Object[]> batch = new ArrayList<>();
+        int needed = quantity;
+        for (int[] shard : shards) {
+            int taken = Math.min(shard[1], needed);
+            if (taken > 0) {
+                batch.add(new Object[]{taken, taken, gate.productId, shard[0]});
+                needed -= taken;
+            }
+            if (needed == 0) {
+                break;
+            }
+        }
+        jdbcTemplate.batchUpdate(DRAIN_SQL, batch);
+        return true;
+    }
+
+    private static void settleOnCompletion(Map<Gate, Integer> admitted) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            settle(admitted, true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                settle(admitted, status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    // Committed stock is already gone from the gate; a rollback hands it back
+    private static void settle(Map<Gate, Integer> admitted, boolean committed) {
+        for (Map.Entry<Gate, Integer> line : admitted.entrySet()) {
+            line.getKey().inFlight.addAndGet(-line.getValue());
+            if (!committed) {
+                line.getKey().remaining.addAndGet(line.getValue());
+            }
+        }
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
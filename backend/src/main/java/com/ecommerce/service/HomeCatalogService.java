@@ -0,0 +1,96 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.HomeCatalog;
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Service
+public class HomeCatalogService {
+
+    private final ProductRepository productRepository;
+
+    @Value("${catalog.home.max-age-ms:300000}")
+    private long maxAgeMs;
+
+    private volatile HomeCatalog snapshot;
+    private volatile long refreshedAtMillis = 0;
+    private volatile boolean stale = true;
+
+    public HomeCatalogService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    public HomeCatalog getSnapshot() {
+        HomeCatalog current = snapshot;
+        if (current == null) {
+            return refresh();
+        }
+        return current;
+    }
+
+    // Product writes only flag the snapshot; the scheduler coalesces bursts into a single rebuild
+    public void markStale() {
+        stale = true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.home.check-interval-ms:5000}")
+    public void refreshIfNeeded() {
+        if (stale || System.currentTimeMillis() - refreshedAtMillis >= maxAgeMs) {
+            refresh();
+        }
+    }
+
+    public synchronized HomeCatalog refresh() {
+        stale = false;
+
+        List<Product> featured = productRepository.findByFeaturedTrueAndActiveTrueOrderByCreatedAtDesc();
+        List<Product> bestSellers = productRepository.findTop10ByActiveTrueOrderBySoldCountDesc();
+        List<Product> latest = productRepository.findTop10ByActiveTrueOrderByCreatedAtDesc();
+        List<String> categories = withoutNulls(productRepository.findAllCategories());
+        List<String> brands = withoutNulls(productRepository.findAllBrands());
+
+        String etag = etag(featured, bestSellers, latest, categories, brands);
+        HomeCatalog current = snapshot;
+        // Keep the existing instance when nothing changed so its ETag and timestamp stay stable
+        if (current == null || !current.getEtag().equals(etag)) {
+            current = new HomeCatalog(featured, bestSellers, latest, categories, brands, etag, LocalDateTime.now());
+            snapshot = current;
+        }
+        refreshedAtMillis = System.currentTimeMillis();
+        return current;
+    }
+
+    private static List<String> withoutNulls(List<String> values) {
+        return values.stream().filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    // Content-derived, so every instance produces the same ETag for the same catalog state
+    private static String etag(List<Product> featured, List<Product> bestSellers, List<Product> latest,
+                               List<String> categories, List<String> brands) {
+        int hash = 1;
+        for (List<Product> products : List.of(featured, bestSellers, latest)) {
+            for (Product product : products) {
+                hash = 31 * hash + Objects.hash(product.getId(), product.getUpdatedAt());
+            }
+            hash = 31 * hash + products.size();
+        }
+        hash = 31 * hash + categories.hashCode();
+        hash = 31 * hash + brands.hashCode();
+        return "\"home-" + Integer.toHexString(hash) + "\"";
+    }
+}
@@ -0,0 +1,369 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.StockReservation;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+// In-memory stock ledger for flash sales. Checkout places a time-limited hold against the ledger instead of
+// locking product rows. A committed hold is journaled in stock_deltas by the order's own transaction, and the
+// reconciler drains the journal into the product rows in batches, so a sale is never only in memory.
+// The ledger is per instance, so this mode needs one node to own checkout for the catalog; startup refuses
+// the mode unless inventory.reservations.single-owner confirms that. The drain keeps a stock guard regardless.
+@Service
+public class InventoryReservationService {
+
+    private static final int STRIPES = 64;
+    private static final int WHEEL_SIZE = 512;
+
+    private enum HoldState { HELD, COMMITTING, COMMITTED, RELEASED }
+
+    private final InventoryService inventoryService;
+    private final ProductService productService;
+
+    @Value("${inventory.reservations.enabled:false}")
+    private boolean enabled;
+
+    @Value("${inventory.reservations.single-owner:false}")
+    private boolean singleOwner;
+
+    @Value("${inventory.reservations.hold-ttl-seconds:600}")
+    private long holdTtlSeconds;
+
+    @Value("${inventory.reservations.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${inventory.reservations.resync-interval-ms:30000}")
+    private long resyncIntervalMs;
+
+    @Value("${inventory.reservations.reconcile-batch-size:1000}")
+    private int reconcileBatchSize;
+
+    @Value("${inventory.reservations.failed-retry-ms:60000}")
+    private long failedRetryMs;
+
+    // Each product maps to one stripe lock; a counter is only read or written under its stripe
+    private final Object[] stripes = new Object[STRIPES];
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+
+    // Timing wheel: each bucket holds the reservations expiring on ticks that map to it
+    private final Queue<Hold>[] wheel;
+    private long lastSweptTick = -1;
+
+    private static class StockCounter {
+        private int available;
+        private int held;
+        // Journaled but not yet drained, so the database stock is still higher by this much. May dip below
+        // zero for a moment when the drain lands between the order's commit and completeCommit.
+        private int pending;
+        private long syncedAt;
+    }
+
+    private static class Hold {
+        private final String id;
+        private final String owner;
+        private final Map<Long, Integer> items;
+        private final long expiresAt;
+        private final AtomicReference<HoldState> state = new AtomicReference<>(HoldState.HELD);
+
+        public Hold(String id, String owner, Map<Long, Integer> items, long expiresAt) {
+            this.id = id;
+            this.owner = owner;
+            this.items = items;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public InventoryReservationService(InventoryService inventoryService, ProductService productService) {
+        this.inventoryService = inventoryService;
+        this.productService = productService;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        wheel = new Queue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    @PostConstruct
+    public void checkSingleOwner() {
+        if (enabled && !singleOwner) {
+            throw new RuntimeException("inventory.reservations.enabled requires inventory.reservations.single-owner=true: " +
+                    "the ledger is per instance, so only one node may take checkouts in this mode");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Holds every line or none: a short line gives back the lines already taken
+    public StockReservation reserve(String owner, Map<Long, Integer> quantities) {
+        if (!enabled) {
+            throw new RuntimeException("Stock reservations are not enabled");
+        }
+        Map<Long, Integer> items = new TreeMap<>(quantities);
+        loadMissingCounters(items.keySet());
+
+        List<Long> taken = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : items.entrySet()) {
+            if (line.getValue() == null || line.getValue() <= 0) {
+                giveBack(items, taken);
+                throw new RuntimeException("Invalid quantity for product: " + line.getKey());
+            }
+            if (!tryHold(line.getKey(), line.getValue())) {
+                giveBack(items, taken);
+                throw new RuntimeException("Product " + line.getKey() + " is out of stock");
+            }
+            taken.add(line.getKey());
+        }
+
+        long expiresAt = System.currentTimeMillis() + holdTtlSeconds * 1000;
+        Hold hold = new Hold(UUID.randomUUID().toString(), owner, Collections.unmodifiableMap(items), expiresAt);
+        holds.put(hold.id, hold);
+        // The tick after the expiry tick, so the hold has already expired when the sweeper reaches its bucket
+        wheel[(int) ((tickOf(expiresAt) + 1) % WHEEL_SIZE)].add(hold);
+        return toReservation(hold);
+    }
+
+    public void release(String reservationId, String owner) {
+        Hold hold = findOwnedHold(reservationId, owner);
+        if (!hold.state.compareAndSet(HoldState.HELD, HoldState.RELEASED)) {
+            throw new RuntimeException("Reservation can no longer be released");
+        }
+        releaseHold(hold);
+    }
+
+    // Converts the hold into a sale when the surrounding transaction commits; a rollback puts it back on hold.
+    // The order must ask for exactly what was reserved.
+    public void commitOnTransaction(String reservationId, String owner, Map<Long, Integer> quantities) {
+        Hold hold = findOwnedHold(reservationId, owner);
+        if (!hold.items.equals(new TreeMap<>(quantities))) {
+            throw new RuntimeException("Cart has changed since the reservation was made");
+        }
+        if (hold.expiresAt <= System.currentTimeMillis() || !hold.state.compareAndSet(HoldState.HELD, HoldState.COMMITTING)) {
+            throw new RuntimeException("Reservation has expired");
+        }
+        commitOnTransaction(hold, false);
+    }
+
+    // Reserve and commit in one step, for checkouts that did not reserve up front
+    public void reserveAndCommitOnTransaction(String owner, Map<Long, Integer> quantities) {
+        StockReservation reservation = reserve(owner, quantities);
+        Hold hold = holds.get(reservation.getId());
+        hold.state.set(HoldState.COMMITTING);
+        commitOnTransaction(hold, true);
+    }
+
+    private void commitOnTransaction(Hold hold, boolean releaseOnRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                inventoryService.recordCommittedDeltas(hold.items);
+            } catch (RuntimeException e) {
+                undoCommit(hold, releaseOnRollback);
+                throw e;
+            }
+            completeCommit(hold);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    completeCommit(hold);
+                } else {
+                    undoCommit(hold, releaseOnRollback);
+                }
+            }
+        });
+        // Registered first, so a failed insert still hands the hold back when the transaction rolls back
+        inventoryService.recordCommittedDeltas(hold.items);
+    }
+
+    private void undoCommit(Hold hold, boolean releaseOnRollback) {
+        if (releaseOnRollback || hold.expiresAt <= System.currentTimeMillis()) {
+            hold.state.set(HoldState.RELEASED);
+            releaseHold(hold);
+        } else {
+            // The user's reservation stays on hold until its original expiry
+            hold.state.set(HoldState.HELD);
+        }
+    }
+
+    // Advances the timing wheel, releasing every hold whose expiry tick has passed
+    @Scheduled(fixedRateString = "${inventory.reservations.tick-ms:1000}")
+    public synchronized void sweepExpiredHolds() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long currentTick = tickOf(now);
+        long fromTick = lastSweptTick < 0 ? currentTick : Math.max(lastSweptTick + 1, currentTick - WHEEL_SIZE + 1);
+        for (long tick = fromTick; tick <= currentTick; tick++) {
+            Iterator<Hold> bucket = wheel[(int) (tick % WHEEL_SIZE)].iterator();
+            while (bucket.hasNext()) {
+                Hold hold = bucket.next();
+                HoldState state = hold.state.get();
+                if (state == HoldState.COMMITTED || state == HoldState.RELEASED) {
+                    bucket.remove();
+                } else if (hold.expiresAt <= now && hold.state.compareAndSet(HoldState.HELD, HoldState.RELEASED)) {
+                    bucket.remove();
+                    releaseHold(hold);
+                }
+                // Holds for a later lap of the wheel, or mid-commit, stay in the bucket
+            }
+        }
+        lastSweptTick = currentTick;
+        evictIdleCounters(now);
+    }
+
+    // Drains journaled sales into the product rows in one batch, then recalibrates the touched counters against
+    // the database. Rows left behind by a failed drain or a restart are picked up on a later run.
+    @Scheduled(fixedDelayString = "${inventory.reservations.reconcile-interval-ms:200}")
+    public synchronized void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Integer> deltas;
+        try {
+            deltas = inventoryService.drainCommittedDeltas(reconcileBatchSize, failedRetryMs);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to reconcile reserved stock: " + e.getMessage());
+            return;
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> levels = inventoryService.findStockLevels(deltas.keySet());
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+            synchronized (stripeFor(delta.getKey())) {
+                StockCounter counter = counters.get(delta.getKey());
+                if (counter == null) {
+                    continue;
+                }
+                counter.pending -= delta.getValue();
+                Integer stock = levels.get(delta.getKey());
+                if (stock != null) {
+                    // Picks up stock changes made outside the ledger, such as admin stock edits
+                    counter.available = stock - counter.held - counter.pending;
+                    counter.syncedAt = now;
+                }
+            }
+        }
+        productService.refreshStockStats(deltas.keySet());
+    }
+
+    private boolean tryHold(Long productId, int quantity) {
+        if (!counters.containsKey(productId)) {
+            // Evicted since it was loaded; reload once
+            loadMissingCounters(List.of(productId));
+        }
+        synchronized (stripeFor(productId)) {
+            StockCounter counter = counters.get(productId);
+            if (counter == null || counter.available < quantity) {
+                return false;
+            }
+            counter.available -= quantity;
+            counter.held += quantity;
+            return true;
+        }
+    }
+
+    private void giveBack(Map<Long, Integer> items, List<Long> taken) {
+        for (Long productId : taken) {
+            synchronized (stripeFor(productId)) {
+                StockCounter counter = counters.get(productId);
+                counter.available += items.get(productId);
+                counter.held -= items.get(productId);
+            }
+        }
+    }
+
+    private void releaseHold(Hold hold) {
+        holds.remove(hold.id);
+        giveBack(hold.items, new ArrayList<>(hold.items.keySet()));
+    }
+
+    private void completeCommit(Hold hold) {
+        hold.state.set(HoldState.COMMITTED);
+        holds.remove(hold.id);
+        for (Map.Entry<Long, Integer> line : hold.items.entrySet()) {
+            synchronized (stripeFor(line.getKey())) {
+                StockCounter counter = counters.get(line.getKey());
+                counter.held -= line.getValue();
+                counter.pending += line.getValue();
+            }
+        }
+    }
+
+    // Counters are loaded lazily, outside any stripe, in one query for all missing products
+    private void loadMissingCounters(Collection<Long> productIds) {
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            if (!counters.containsKey(productId)) {
+                missing.add(productId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        // Sales still in the journal, e.g. from before a restart, are already spoken for
+        for (Map.Entry<Long, int[]> level : inventoryService.findStockLevelsWithPending(missing).entrySet()) {
+            StockCounter counter = new StockCounter();
+            counter.pending = level.getValue()[1];
+            counter.available = level.getValue()[0] - counter.pending;
+            counter.syncedAt = now;
+            counters.putIfAbsent(level.getKey(), counter);
+        }
+    }
+
+    // An idle counter is dropped after the resync interval, so the next reservation reloads the stock from the database
+    private void evictIdleCounters(long now) {
+        for (Map.Entry<Long, StockCounter> entry : counters.entrySet()) {
+            StockCounter counter = entry.getValue();
+            synchronized (stripeFor(entry.getKey())) {
+                if (counter.held == 0 && counter.pending == 0 && now - counter.syncedAt >= resyncIntervalMs) {
+                    counters.remove(entry.getKey(), counter);
+                }
+            }
+        }
+    }
+
+    private Hold findOwnedHold(String reservationId, String owner) {
+        Hold hold = holds.get(reservationId);
+        if (hold == null || !hold.owner.equals(owner)) {
+            throw new RuntimeException("Reservation not found");
+        }
+        return hold;
+    }
+
+    private Object stripeFor(Long productId) {
+        return stripes[(int) (productId % STRIPES)];
+    }
+
+    private long tickOf(long millis) {
+        return millis / tickMs;
+    }
+
+    private static StockReservation toReservation(Hold hold) {
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(hold.expiresAt), ZoneId.systemDefault());
+        return new StockReservation(hold.id, hold.items, expiresAt);
+    }
+}
@@ -0,0 +1,309 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Stock movements as set-based SQL, so concurrent checkouts cannot read-modify-write over each other
+@Service
+public class InventoryService {
+
+    // The stock guard lives in the WHERE clause: a row that cannot cover the quantity is simply not updated.
+    // A product on flash sale sells from its shards, so a node that has not seen the sale start yet cannot
+    // write to the row the rollup is about to overwrite.
+    private static final String DECREMENT_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, sold_count = sold_count + ?, updated_at = ? " +
+            "WHERE id = ? AND stock_quantity >= ? " +
+            "AND NOT EXISTS (SELECT 1 FROM product_flash_sales f WHERE f.product_id = products.id)";
+
+    // For deltas already admitted by the reservation ledger. The ledger only sees its own node's sales, so the
+    // stock guard stays: a delta the row cannot cover is never applied.
+    private static final String APPLY_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, sold_count = sold_count + ?, updated_at = ? " +
+            "WHERE id = ? AND stock_quantity >= ?";
+
+    private static final String RECORD_DELTA_SQL =
+            "INSERT INTO stock_deltas (product_id, quantity, created_at) VALUES (?, ?, ?)";
+
+    // Puts the items of a set of orders back in stock. MySQL spells an update join UPDATE ... JOIN, PostgreSQL
+    // UPDATE ... FROM. Flash-sale products are skipped; their stock lives in the counter shards.
+    private static final String RESTORE_MYSQL_SQL =
+            "UPDATE products p JOIN (SELECT product_id, SUM(quantity) AS quantity FROM order_items " +
+            "WHERE order_id IN (%s) GROUP BY product_id) oi ON oi.product_id = p.id " +
+            "SET p.stock_quantity = p.stock_quantity + oi.quantity, p.sold_count = p.sold_count - oi.quantity, " +
+            "p.updated_at = ? WHERE NOT EXISTS (SELECT 1 FROM product_flash_sales f WHERE f.product_id = p.id)";
+
+    private static final String RESTORE_SQL =
+            "UPDATE products p SET stock_quantity = p.stock_quantity + oi.quantity, " +
+            "sold_count = p.sold_count - oi.quantity, updated_at = ? " +
+            "FROM (SELECT product_id, SUM(quantity) AS quantity FROM order_items " +
+            "WHERE order_id IN (%s) GROUP BY product_id) oi WHERE oi.product_id = p.id " +
+            "AND NOT EXISTS (SELECT 1 FROM product_flash_sales f WHERE f.product_id = p.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private volatile Boolean mySql;
+
+    // Cleared once the driver answers a batch with SUCCESS_NO_INFO instead of per-statement counts
+    private volatile boolean batchCountsReported = true;
+
+    public InventoryService(JdbcTemplate jdbcTemplate, ProductRepository productRepository,
+                            EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    // Decrements stock for every line in one JDBC batch. Must run inside the caller's transaction: a line
+    // without enough stock throws, and the rollback undoes the lines that did succeed. Lines for products on
+    // flash sale, which this node may not have seen start yet, are left alone and returned for the shards.
+    public Map<Long, Integer> decrementStock(Map<Long, Integer> quantities) {
+        Map<Long, Integer> onFlashSale = new TreeMap<>();
+        if (quantities.isEmpty()) {
+            return onFlashSale;
+        }
+
+        // Rows are updated in id order so concurrent orders lock shared products in the same order
+        Map<Long, Integer> ordered = new TreeMap<>(quantities);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(ordered.size());
+        List<Long> productIds = new ArrayList<>(ordered.size());
+        for (Map.Entry<Long, Integer> line : ordered.entrySet()) {
+            if (line.getValue() == null || line.getValue() <= 0) {
+                throw new RuntimeException("Invalid quantity for product: " + line.getKey());
+            }
+            batch.add(new Object[]{line.getValue(), line.getValue(), now, line.getKey(), line.getValue()});
+            productIds.add(line.getKey());
+        }
+
+        // The stock guard is only as good as the update counts. A driver may answer a batch with
+        // SUCCESS_NO_INFO (-2) rather than a count per statement; such a batch cannot tell a sold line from a
+        // short one, so it is rolled back and later calls send one UPDATE per line, which always reports a count.
+        int[] updated = batchCountsReported ? jdbcTemplate.batchUpdate(DECREMENT_SQL, batch) : updateEach(batch);
+        List<Long> missed = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == Statement.SUCCESS_NO_INFO) {
+                batchCountsReported = false;
+                System.err.println("JDBC driver did not report batch update counts; decrementing stock line by line");
+                throw new RuntimeException("Could not confirm the stock update, please try again");
+            }
+            if (updated[i] != 1) {
+                missed.add(productIds.get(i));
+            }
+        }
+        if (missed.isEmpty()) {
+            return onFlashSale;
+        }
+
+        String placeholders = String.join(",", Collections.nCopies(missed.size(), "?"));
+        List<Long> onSale = jdbcTemplate.queryForList(
+                "SELECT product_id FROM product_flash_sales WHERE product_id IN (" + placeholders + ")",
+                Long.class, missed.toArray());
+        for (Long productId : missed) {
+            if (!onSale.contains(productId)) {
+                throw new RuntimeException("Product " + productName(productId) + " is out of stock");
+            }
+            onFlashSale.put(productId, ordered.get(productId));
+        }
+        return onFlashSale;
+    }
+
+    // Journals sales admitted by the reservation ledger, inside the order's transaction, so they commit or
+    // roll back with the order and outlive a restart until drained
+    public void recordCommittedDeltas(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantities).entrySet()) {
+            batch.add(new Object[]{line.getKey(), line.getValue(), now});
+        }
+        jdbcTemplate.batchUpdate(RECORD_DELTA_SQL, batch);
+    }
+
+    // Applies up to limit journaled sales to the product rows and deletes them, in one transaction.
+    // A product whose stock no longer covers its deltas (sold elsewhere meanwhile) keeps them in the journal,
+    // marked failed and retried after retryFailedAfterMs, e.g. once stock is added. Returns the quantities
+    // applied per product.
+    @Transactional
+    public Map<Long, Integer> drainCommittedDeltas(int limit, long retryFailedAfterMs) {
+        Map<Long, List<Long>> deltaIds = new TreeMap<>();
+        Map<Long, Integer> quantities = new TreeMap<>();
+        Timestamp retryBefore = new Timestamp(System.currentTimeMillis() - retryFailedAfterMs);
+        jdbcTemplate.query("SELECT id, product_id, quantity FROM stock_deltas " +
+                        "WHERE failed_at IS NULL OR failed_at < ? ORDER BY id LIMIT ? FOR UPDATE",
+                rs -> {
+                    long productId = rs.getLong("product_id");
+                    deltaIds.computeIfAbsent(productId, id -> new ArrayList<>()).add(rs.getLong("id"));
+                    quantities.merge(productId, rs.getInt("quantity"), Integer::sum);
+                }, retryBefore, limit);
+        if (quantities.isEmpty()) {
+            return quantities;
+        }
+
+        // Lock the rows in id order and decide here which deltas fit, so the outcome never depends on the
+        // driver reporting per-statement update counts
+        String productPlaceholders = String.join(",", Collections.nCopies(quantities.size(), "?"));
+        Map<Long, Integer> stock = new HashMap<>();
+        jdbcTemplate.query("SELECT id, stock_quantity FROM products WHERE id IN (" + productPlaceholders + ") " +
+                        "ORDER BY id FOR UPDATE",
+                rs -> {
+                    stock.put(rs.getLong("id"), rs.getInt("stock_quantity"));
+                }, quantities.keySet().toArray());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<Long, Integer> applied = new TreeMap<>();
+        List<Object[]> batch = new ArrayList<>(quantities.size());
+        List<Long> doneIds = new ArrayList<>();
+        List<Long> failedIds = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Integer level = stock.get(line.getKey());
+            if (level == null) {
+                // The product is gone; there is no row left to apply the sale to
+                doneIds.addAll(deltaIds.get(line.getKey()));
+            } else if (level >= line.getValue()) {
+                batch.add(new Object[]{line.getValue(), line.getValue(), now, line.getKey(), line.getValue()});
+                applied.put(line.getKey(), line.getValue());
+                doneIds.addAll(deltaIds.get(line.getKey()));
+            } else {
+                System.err.println("Reserved sale of " + line.getValue() + " for product " + line.getKey() +
+                        " exceeds its stock of " + level + "; left in the journal");
+                failedIds.addAll(deltaIds.get(line.getKey()));
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPLY_SQL, batch);
+        }
+
+        // By id rather than by range: an order still in flight may commit a lower id later
+        if (!doneIds.isEmpty()) {
+            String placeholders = String.join(",", Collections.nCopies(doneIds.size(), "?"));
+            jdbcTemplate.update("DELETE FROM stock_deltas WHERE id IN (" + placeholders + ")", doneIds.toArray());
+        }
+        if (!failedIds.isEmpty()) {
+            List<Object> args = new ArrayList<>(failedIds.size() + 1);
+            args.add(now);
+            args.addAll(failedIds);
+            String placeholders = String.join(",", Collections.nCopies(failedIds.size(), "?"));
+            jdbcTemplate.update("UPDATE stock_deltas SET failed_at = ? WHERE id IN (" + placeholders + ")", args.toArray());
+        }
+        return applied;
+    }
+
+    // Restores stock for every item of the given orders in one statement, inside the caller's transaction.
+    // Returns the products it touched.
+    public List<Long> restoreStock(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String placeholders = String.join(",", Collections.nCopies(orderIds.size(), "?"));
+
+        // Lock the product rows first, in id order, so a flash sale cannot start or end halfway through
+        List<Long> productIds = jdbcTemplate.queryForList("SELECT id FROM products WHERE id IN " +
+                "(SELECT product_id FROM order_items WHERE order_id IN (" + placeholders + ")) ORDER BY id FOR UPDATE",
+                Long.class, orderIds.toArray());
+        if (productIds.isEmpty()) {
+            return productIds;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object> args = new ArrayList<>(orderIds.size() + 1);
+        if (isMySql()) {
+            args.addAll(orderIds);
+            args.add(now);
+            jdbcTemplate.update(String.format(RESTORE_MYSQL_SQL, placeholders), args.toArray());
+        } else {
+            args.add(now);
+            args.addAll(orderIds);
+            jdbcTemplate.update(String.format(RESTORE_SQL, placeholders), args.toArray());
+        }
+        return productIds;
+    }
+
+    public Map<Long, Integer> findStockLevels(Collection<Long> productIds) {
+        Map<Long, Integer> levels = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return levels;
+        }
+        String placeholders = String.join(",", Collections.nCopies(productIds.size(), "?"));
+        jdbcTemplate.query("SELECT id, stock_quantity FROM products WHERE id IN (" + placeholders + ")",
+                rs -> {
+                    levels.put(rs.getLong("id"), rs.getInt("stock_quantity"));
+                }, productIds.toArray());
+        return levels;
+    }
+
+    // Stock and journaled-but-unapplied sales per product as {stock, pending}, read in one statement so a
+    // concurrent drain cannot be counted twice or not at all
+    public Map<Long, int[]> findStockLevelsWithPending(Collection<Long> productIds) {
+        Map<Long, int[]> levels = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return levels;
+        }
+        String placeholders = String.join(",", Collections.nCopies(productIds.size(), "?"));
+        jdbcTemplate.query("SELECT p.id, p.stock_quantity, " +
+                        "(SELECT COALESCE(SUM(d.quantity), 0) FROM stock_deltas d WHERE d.product_id = p.id) AS pending " +
+                        "FROM products p WHERE p.id IN (" + placeholders + ")",
+                rs -> {
+                    levels.put(rs.getLong("id"), new int[]{rs.getInt("stock_quantity"), rs.getInt("pending")});
+                }, productIds.toArray());
+        return levels;
+    }
+
+    // Reads products through a private persistence context. The request's own context may still hold
+    // the pre-update copies, since the SQL above bypasses it.
+    public List<Product> loadCurrent(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.createQuery("SELECT p FROM Product p WHERE p.id IN :ids", Product.class)
+                    .setParameter("ids", productIds)
+                    .getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private int[] updateEach(List<Object[]> batch) {
+        int[] updated = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            updated[i] = jdbcTemplate.update(DECREMENT_SQL, batch.get(i));
+        }
+        return updated;
+    }
+
+    private boolean isMySql() {
+        if (mySql == null) {
+            mySql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql"));
+        }
+        return mySql;
+    }
+
+    private String productName(Long productId) {
+        return productRepository.findById(productId)
+                .map(Product::getName)
+                .orElse(String.valueOf(productId));
+    }
+}
@@ -0,0 +1,193 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.IdempotencyKey;
+import com.ecommerce.entity.Order;
+import com.ecommerce.repository.IdempotencyKeyRepository;
+import com.ecommerce.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Makes POST /orders safe to retry. The first attempt for a key runs; concurrent duplicates wait on it and
+// later ones get the same order back without touching the cart or inventory again. The in-memory map
+// covers retries on this node, and the key row written with the order covers restarts and other nodes.
+@Service
+public class OrderIdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Value("${orders.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${orders.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    // How long a duplicate waits for the first attempt before it is told the key is still in progress
+    @Value("${orders.idempotency.await-timeout-ms:10000}")
+    private long awaitTimeoutMs;
+
+    // Access-ordered, so eviction starts from the least recently used entry. An attempt still in flight is
+    // skipped: dropping it would let a retry start a second checkout for the same key on this node.
+    private final LinkedHashMap<String, Attempt> attempts = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Attempt> eldest) {
+            Iterator<Attempt> candidates = values().iterator();
+            while (size() > maxEntries && candidates.hasNext()) {
+                if (candidates.next().orderId.isDone()) {
+                    candidates.remove();
+                }
+            }
+            return false;
+        }
+    };
+
+    // The first attempt for the key has not finished within the wait; the client should retry later
+    public static class AttemptInProgressException extends RuntimeException {
+        public AttemptInProgressException(String message) {
+            super(message);
+        }
+    }
+
+    private static class Attempt {
+        private final String requestHash;
+        private final long createdAt;
+        private final CompletableFuture<Long> orderId = new CompletableFuture<>();
+
+        public Attempt(String requestHash, long createdAt) {
+            this.requestHash = requestHash;
+            this.createdAt = createdAt;
+        }
+    }
+
+    public OrderIdempotencyService(OrderService orderService, OrderRepository orderRepository,
+                                   IdempotencyKeyRepository idempotencyKeyRepository) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+    }
+
+    public Order createOrder(String email, Order order, String reservationId, String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = requestHash(order, reservationId);
+        String mapKey = email + "\n" + idempotencyKey;
+        long now = System.currentTimeMillis();
+
+        Attempt attempt;
+        boolean owner = false;
+        synchronized (attempts) {
+            attempt = attempts.get(mapKey);
+            if (attempt == null || now - attempt.createdAt >= ttlHours * 3600 * 1000) {
+                attempt = new Attempt(requestHash, now);
+                attempts.put(mapKey, attempt);
+                owner = true;
+            }
+        }
+        if (!attempt.requestHash.equals(requestHash)) {
+            throw new RuntimeException("Idempotency-Key was already used for a different request");
+        }
+        if (!owner) {
+            return loadOrder(await(attempt));
+        }
+
+        try {
+            Long orderId = runOnce(email, order, reservationId, idempotencyKey, requestHash);
+            attempt.orderId.complete(orderId);
+            return loadOrder(orderId);
+        } catch (RuntimeException e) {
+            // A failed attempt is not remembered, so the client can retry it with the same key
+            synchronized (attempts) {
+                attempts.remove(mapKey, attempt);
+            }
+            attempt.orderId.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(cron = "${orders.idempotency.purge-cron:0 15 * * * *}")
+    public void purgeExpiredKeys() {
+        idempotencyKeyRepository.deleteOlderThan(LocalDateTime.now().minusHours(ttlHours));
+    }
+
+    private Long runOnce(String email, Order order, String reservationId, String idempotencyKey, String requestHash) {
+        // Another node, or this one before a restart, may already have completed this key
+        Optional<Long> stored = findStoredOrderId(email, idempotencyKey, requestHash);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        try {
+            IdempotencyKey record = new IdempotencyKey(email, idempotencyKey, requestHash);
+            return orderService.createOrder(email, order, reservationId, record).getId();
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race on the unique key to another node; its transaction committed the order
+            return findStoredOrderId(email, idempotencyKey, requestHash).orElseThrow(() -> e);
+        }
+    }
+
+    private Optional<Long> findStoredOrderId(String email, String idempotencyKey, String requestHash) {
+        return idempotencyKeyRepository.findByUserEmailAndIdempotencyKey(email, idempotencyKey)
+                .map(record -> {
+                    if (!record.getRequestHash().equals(requestHash)) {
+                        throw new RuntimeException("Idempotency-Key was already used for a different request");
+                    }
+                    return record.getOrderId();
+                });
+    }
+
+    private Order loadOrder(Long orderId) {
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+    }
+
+    private Long await(Attempt attempt) {
+        try {
+            return attempt.orderId.get(awaitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new AttemptInProgressException("A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AttemptInProgressException("A request with this Idempotency-Key is still in progress");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                    : new RuntimeException(e.getCause());
+        }
+    }
+
+    // The order contents come from the cart, so the fingerprint covers what the client sent
+    private static String requestHash(Order order, String reservationId) {
+        String fingerprint = String.join("\n",
+                Objects.toString(order.getShippingAddress(), ""),
+                Objects.toString(order.getBillingAddress(), ""),
+                Objects.toString(order.getPhoneNumber(), ""),
+                Objects.toString(order.getEmail(), ""),
+                Objects.toString(order.getNotes(), ""),
+                Objects.toString(reservationId, ""));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(fingerprint.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available");
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ecommerce.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Snowflake-style order numbers: 41 bits of milliseconds since 2024-01-01, a 10-bit node id and a 12-bit
+// per-millisecond sequence. Ids are unique across nodes as long as every node has its own id, with no
+// database round-trip, and each node hands them out in strictly increasing order.
+@Service
+public class OrderNumberGenerator {
+
+    private static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // Crockford base32: no I, L, O or U, so codes survive being read out over the phone
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    // 63 bits need 13 base32 digits; a fixed width keeps the codes sorting in id order
+    private static final int CODE_LENGTH = 13;
+
+    private final long nodeId;
+
+    // Last issued (timestamp << SEQUENCE_BITS | sequence). A sequence that runs past 4095 carries into the
+    // timestamp, borrowing the next millisecond instead of waiting for it; a clock that steps back is ignored
+    // the same way, so the state never moves backwards.
+    private final AtomicLong state = new AtomicLong();
+
+    public OrderNumberGenerator(@Value("${orders.node-id:-1}") long configuredNodeId,
+                                @Value("${orders.require-node-id:false}") boolean nodeIdRequired) {
+        if (configuredNodeId > MAX_NODE_ID) {
+            throw new RuntimeException("orders.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        if (configuredNodeId < 0 && nodeIdRequired) {
+            throw new RuntimeException("orders.node-id is required: set ORDER_NODE_ID to a value between 0 and "
+                    + MAX_NODE_ID + " that no other instance uses");
+        }
+        this.nodeId = configuredNodeId >= 0 ? configuredNodeId : derivedNodeId();
+    }
+
+    public String nextOrderNumber() {
+        return "ORD-" + encode(nextId());
+    }
+
+    public long nextId() {
+        long now = System.currentTimeMillis() - EPOCH;
+        long previous;
+        long next;
+        do {
+            previous = state.get();
+            next = Math.max(now << SEQUENCE_BITS, previous + 1);
+        } while (!state.compareAndSet(previous, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    private static String encode(long id) {
+        char[] code = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(code);
+    }
+
+    // Fallback for single-instance and development setups. Several instances must each set orders.node-id,
+    // since two hosts can hash to the same id; orders.require-node-id turns the fallback off.
+    private static long derivedNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        String identity = host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        long nodeId = (identity.hashCode() & 0x7fffffff) % (MAX_NODE_ID + 1);
+        System.out.println("orders.node-id not set, using " + nodeId + " derived from " + identity);
+        return nodeId;
+    }
+}
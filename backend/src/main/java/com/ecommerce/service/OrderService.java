@@ -1,5 +1,6 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.StockReservation;
 import com.ecommerce.entity.*;
 import com.ecommerce.repository.*;
 import org.springframework.data.domain.Page;
@@ -13,25 +14,54 @@ import java.util.*;
 
 @Service
 public class OrderService {
+    
+    private static final int MAX_BULK_CANCEL = 500;
+    
+    private static final Set<Order.OrderStatus> CANCELLABLE =
+            EnumSet.of(Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED, Order.OrderStatus.SHIPPED);
+    
+    private static final Set<Order.OrderStatus> RETURNABLE = EnumSet.of(Order.OrderStatus.DELIVERED);
 
     private final OrderRepository orderRepository;
-    private final OrderItemRepository orderItemRepository;
     private final UserRepository userRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductService productService;
+    private final InventoryService inventoryService;
+    private final ProductRecommendationService productRecommendationService;
+    private final InventoryReservationService inventoryReservationService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final OutboxService outboxService;
+    private final FlashSaleService flashSaleService;
+    private final OrderNumberGenerator orderNumberGenerator;
 
-    public OrderService(OrderRepository orderRepository, OrderItemRepository orderItemRepository, 
+    public OrderService(OrderRepository orderRepository, 
                        UserRepository userRepository, CartItemRepository cartItemRepository, 
-                       ProductService productService) {
+                       ProductService productService, InventoryService inventoryService,
+                       ProductRecommendationService productRecommendationService,
+                       InventoryReservationService inventoryReservationService,
+                       IdempotencyKeyRepository idempotencyKeyRepository, OutboxService outboxService,
+                       FlashSaleService flashSaleService, OrderNumberGenerator orderNumberGenerator) {
         this.orderRepository = orderRepository;
-        this.orderItemRepository = orderItemRepository;
         this.userRepository = userRepository;
         this.cartItemRepository = cartItemRepository;
         this.productService = productService;
+        this.inventoryService = inventoryService;
+        this.productRecommendationService = productRecommendationService;
+        this.inventoryReservationService = inventoryReservationService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.outboxService = outboxService;
+        this.flashSaleService = flashSaleService;
+        this.orderNumberGenerator = orderNumberGenerator;
     }
 
     @Transactional
-    public Order createOrder(String email, Order order) {
+    public Order createOrder(String email, Order order, String reservationId, IdempotencyKey idempotencyKey) {
+        // Claim the key first: a concurrent duplicate on another node blocks here on the unique index,
+        // then fails without having touched the cart or stock
+        if (idempotencyKey != null) {
+            idempotencyKeyRepository.saveAndFlush(idempotencyKey);
+        }
+        
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
@@ -43,6 +73,7 @@ public class OrderService {
         
         // Create order
         order.setUser(user);
+        order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
         order.setStatus(Order.OrderStatus.PENDING);
         order.setPaymentStatus(Order.PaymentStatus.PENDING);
         order.setCreatedAt(LocalDateTime.now());
@@ -51,13 +82,9 @@ public class OrderService {
         // Calculate total
         BigDecimal totalAmount = BigDecimal.ZERO;
         List<OrderItem> orderItems = new ArrayList<>();
+        Map<Long, Integer> quantities = new HashMap<>();
         
         for (CartItem cartItem : cartItems) {
-            // Check stock availability
-            if (!productService.isProductInStock(cartItem.getProduct().getId(), cartItem.getQuantity())) {
-                throw new RuntimeException("Product " + cartItem.getProduct().getName() + " is out of stock");
-            }
-            
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
             orderItem.setProduct(cartItem.getProduct());
@@ -72,27 +99,74 @@ public class OrderService {
                     .multiply(BigDecimal.valueOf(cartItem.getQuantity()));
             totalAmount = totalAmount.add(itemTotal);
             
-            // Reduce stock
-            productService.reduceStock(cartItem.getProduct().getId(), cartItem.getQuantity());
+            quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+        }
+        
+        // Check and reduce stock for all lines at once; a short line fails the whole order.
+        // In reservation mode the in-memory ledger admits the order and the database catches up in batches.
+        if (reservationId != null) {
+            inventoryReservationService.commitOnTransaction(reservationId, email, quantities);
+        } else if (inventoryReservationService.isEnabled()) {
+            inventoryReservationService.reserveAndCommitOnTransaction(email, quantities);
+        } else {
+            // Flash-sale products sell from their counter shards; they go first so the admission gate
+            // can turn away a sold-out order before any row is touched. This node's view of the sales lags
+            // the other nodes by up to a rollup: a sale that ended meanwhile sends its lines back to the
+            // product rows, and one that started meanwhile sends them on to the shards.
+            Map<Long, Integer> regularLines = new HashMap<>(quantities);
+            regularLines.putAll(flashSaleService.decrementStock(flashSaleService.extractActive(regularLines)));
+            if (!regularLines.isEmpty()) {
+                Map<Long, Integer> startedLines = productService.reduceStock(regularLines);
+                if (!flashSaleService.decrementStock(startedLines).isEmpty()) {
+                    throw new RuntimeException("Flash sale changed during checkout, please try again");
+                }
+            }
         }
         
         order.setTotalAmount(totalAmount);
+        order.setOrderItems(new LinkedHashSet<>(orderItems));
         
-        // Save order
+        // Save order; the items cascade and are flushed as one batched insert
         Order savedOrder = orderRepository.save(order);
-        
-        // Save order items
-        for (OrderItem orderItem : orderItems) {
-            orderItem.setOrder(savedOrder);
-            orderItemRepository.save(orderItem);
+        if (idempotencyKey != null) {
+            idempotencyKey.setOrderId(savedOrder.getId());
         }
         
+        // The confirmation email is sent by the outbox dispatcher once this transaction commits
+        outboxService.enqueueOrderConfirmation(savedOrder);
+        
         // Clear cart
         cartItemRepository.deleteByUser(user);
         
+        // Feed the co-purchase recommendations once the order is committed
+        List<Long> productIds = new ArrayList<>();
+        for (OrderItem orderItem : orderItems) {
+            productIds.add(orderItem.getProduct().getId());
+        }
+        productRecommendationService.recordOrderAfterCommit(productIds);
+        
         return savedOrder;
     }
 
+    // Holds the current cart's stock for a limited time while the user completes checkout
+    public StockReservation reserveCart(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        List<CartItem> cartItems = cartItemRepository.findByUser(user);
+        if (cartItems.isEmpty()) {
+            throw new RuntimeException("Cart is empty");
+        }
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (CartItem cartItem : cartItems) {
+            quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+        }
+        return inventoryReservationService.reserve(email, quantities);
+    }
+
+    public void releaseReservation(String reservationId, String email) {
+        inventoryReservationService.release(reservationId, email);
+    }
+
     public List<Order> getUserOrders(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -114,26 +188,13 @@ public class OrderService {
         return order;
     }
 
+    @Transactional
     public Order cancelOrder(Long id, String email) {
         Order order = getOrderById(id, email);
-        
-        if (order.getStatus() == Order.OrderStatus.DELIVERED ||
-            order.getStatus() == Order.OrderStatus.CANCELLED) {
+        if (restockOrders(List.of(order.getId()), Order.OrderStatus.CANCELLED).isEmpty()) {
             throw new RuntimeException("Cannot cancel this order");
         }
-        
-        order.setStatus(Order.OrderStatus.CANCELLED);
-        order.setUpdatedAt(LocalDateTime.now());
-        
-        // Restore stock for cancelled items
-        List<OrderItem> orderItems = orderItemRepository.findByOrder(order);
-        for (OrderItem orderItem : orderItems) {
-            Product product = orderItem.getProduct();
-            product.setStockQuantity(product.getStockQuantity() + orderItem.getQuantity());
-            product.setSoldCount(product.getSoldCount() - orderItem.getQuantity());
-        }
-        
-        return orderRepository.save(order);
+        return order;
     }
 
     // Admin methods
@@ -141,12 +202,41 @@ public class OrderService {
         return orderRepository.findAllByOrderByCreatedAtDesc(pageable);
     }
 
+    // Cancels every order that can still be cancelled and restocks all of their items in one transaction
+    @Transactional
+    public Map<String, Object> cancelOrders(List<Long> orderIds) {
+        Set<Long> requested = new LinkedHashSet<>(orderIds);
+        if (requested.isEmpty() || requested.size() > MAX_BULK_CANCEL) {
+            throw new RuntimeException("Between 1 and " + MAX_BULK_CANCEL + " orders can be cancelled at once");
+        }
+        
+        List<Long> cancelled = new ArrayList<>();
+        for (Order order : restockOrders(requested, Order.OrderStatus.CANCELLED)) {
+            cancelled.add(order.getId());
+        }
+        List<Long> skipped = new ArrayList<>(requested);
+        skipped.removeAll(cancelled);
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("cancelled", cancelled);
+        result.put("skipped", skipped);
+        return result;
+    }
+
+    @Transactional
     public Order updateOrderStatus(Long id, String status) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
         try {
             Order.OrderStatus orderStatus = Order.OrderStatus.valueOf(status.toUpperCase());
+            // Cancelling or returning puts the items back in stock, so it takes the same path as cancelOrder
+            if (orderStatus == Order.OrderStatus.CANCELLED || orderStatus == Order.OrderStatus.RETURNED) {
+                if (restockOrders(List.of(id), orderStatus).isEmpty()) {
+                    throw new RuntimeException("Cannot change order status from " + order.getStatus() + " to " + orderStatus);
+                }
+                return order;
+            }
             order.setStatus(orderStatus);
             order.setUpdatedAt(LocalDateTime.now());
             return orderRepository.save(order);
@@ -203,4 +293,32 @@ public class OrderService {
             throw new RuntimeException("Invalid order status: " + status);
         }
     }
+
+    // Moves the orders that are eligible for the target status and restores stock for all of their items with
+    // set-based updates, inside the caller's transaction. Returns the orders that were moved.
+    private List<Order> restockOrders(Collection<Long> orderIds, Order.OrderStatus target) {
+        // The row locks make a concurrent cancel of the same order wait, then find it no longer eligible
+        List<Order> orders = orderRepository.lockByIdInAndStatusIn(orderIds,
+                target == Order.OrderStatus.RETURNED ? RETURNABLE : CANCELLABLE);
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        
+        List<Long> ids = new ArrayList<>();
+        for (Order order : orders) {
+            ids.add(order.getId());
+        }
+        List<Long> productIds = inventoryService.restoreStock(ids);
+        flashSaleService.restoreStock(ids);
+        
+        LocalDateTime now = LocalDateTime.now();
+        for (Order order : orders) {
+            order.setStatus(target);
+            order.setUpdatedAt(now);
+        }
+        orderRepository.saveAll(orders);
+        
+        productService.refreshStockStatsAfterCommit(productIds);
+        return orders;
+    }
 }
@@ -0,0 +1,159 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.Order;
+import com.ecommerce.entity.OutboxMessage;
+import com.ecommerce.repository.OutboxMessageRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Transactional outbox. Callers record messages inside their own transaction; the dispatcher claims due rows in
+// batches, delivers them on a bounded pool and retries failures with exponential backoff. Several nodes can run
+// the dispatcher: a row is claimed by a conditional UPDATE, and a claim that outlives its lease is taken over.
+@Service
+public class OutboxService {
+
+    private static final String DUE_SQL =
+            "SELECT id FROM outbox_messages WHERE (status = 'PENDING' AND next_attempt_at <= ?) " +
+            "OR (status = 'PROCESSING' AND locked_until < ?) ORDER BY id LIMIT ?";
+
+    private static final String CLAIM_SQL =
+            "UPDATE outbox_messages SET status = 'PROCESSING', locked_until = ? WHERE id = ? AND " +
+            "((status = 'PENDING' AND next_attempt_at <= ?) OR (status = 'PROCESSING' AND locked_until < ?))";
+
+    private static final String SENT_SQL =
+            "UPDATE outbox_messages SET status = 'SENT', sent_at = ?, attempts = attempts + 1, locked_until = NULL " +
+            "WHERE id = ?";
+
+    private static final String RETRY_SQL =
+            "UPDATE outbox_messages SET status = ?, attempts = attempts + 1, next_attempt_at = ?, " +
+            "locked_until = NULL, last_error = ? WHERE id = ?";
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EmailService emailService;
+
+    @Value("${outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.backoff-base-ms:2000}")
+    private long backoffBaseMs;
+
+    @Value("${outbox.backoff-max-ms:600000}")
+    private long backoffMaxMs;
+
+    @Value("${outbox.lease-ms:120000}")
+    private long leaseMs;
+
+    private final ThreadPoolExecutor senders;
+
+    public OutboxService(OutboxMessageRepository outboxMessageRepository, JdbcTemplate jdbcTemplate,
+                         EmailService emailService, @Value("${outbox.pool-size:4}") int poolSize) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.emailService = emailService;
+        // The queue is bounded and the dispatcher only claims what fits, so a slow mail server never piles up work
+        this.senders = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+
+    // Joins the caller's transaction, so the message exists exactly when the order does
+    public void enqueueOrderConfirmation(Order order) {
+        String recipient = order.getEmail() != null && !order.getEmail().isBlank()
+                ? order.getEmail() : order.getUser().getEmail();
+        outboxMessageRepository.save(new OutboxMessage(OutboxMessage.MessageType.ORDER_CONFIRMATION_EMAIL,
+                order.getId(), recipient, order.getOrderNumber()));
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        int capacity = senders.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        for (OutboxMessage message : claimDue(Math.min(batchSize, capacity))) {
+            senders.execute(() -> deliver(message));
+        }
+    }
+
+    private List<OutboxMessage> claimDue(int limit) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> due = jdbcTemplate.queryForList(DUE_SQL, Long.class, now, now, limit);
+        if (due.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Timestamp lease = Timestamp.valueOf(LocalDateTime.now().plusNanos(leaseMs * 1_000_000));
+        List<Object[]> batch = new ArrayList<>(due.size());
+        for (Long id : due) {
+            batch.add(new Object[]{lease, id, now, now});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(CLAIM_SQL, batch);
+
+        // A row another dispatcher claimed first shows zero affected rows and is skipped
+        List<Long> claimed = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] != 0) {
+                claimed.add(due.get(i));
+            }
+        }
+        return outboxMessageRepository.findAllById(claimed);
+    }
+
+    private void deliver(OutboxMessage message) {
+        try {
+            switch (message.getType()) {
+                case ORDER_CONFIRMATION_EMAIL:
+                    emailService.sendOrderConfirmationEmail(message.getRecipient(), message.getPayload());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown outbox message type: " + message.getType());
+            }
+            jdbcTemplate.update(SENT_SQL, Timestamp.valueOf(LocalDateTime.now()), message.getId());
+        } catch (RuntimeException e) {
+            int attempts = message.getAttempts() + 1;
+            boolean giveUp = attempts >= maxAttempts;
+            jdbcTemplate.update(RETRY_SQL,
+                    giveUp ? OutboxMessage.Status.FAILED.name() : OutboxMessage.Status.PENDING.name(),
+                    Timestamp.valueOf(LocalDateTime.now().plusNanos(backoffMs(attempts) * 1_000_000)),
+                    truncate(e.getMessage()), message.getId());
+            System.err.println("Outbox message " + message.getId() + " failed (attempt " + attempts + "): " + e.getMessage());
+        }
+    }
+
+    // Exponential backoff with jitter, so retries after a mail outage do not arrive in lockstep
+    private long backoffMs(int attempts) {
+        long ceiling = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempts - 1, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    private static String truncate(String value) {
+        if (value == null) {
+            return null;
+        }
+        return value.length() <= 500 ? value : value.substring(0, 500);
+    }
+}
@@ -0,0 +1,185 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class ProductCacheService {
+
+    private static final int SEGMENTS = 16;
+
+    private final ProductRepository productRepository;
+
+    @Value("${product.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${product.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // Lock striping: each id maps to one segment with its own LRU and lock, so readers of different products
+    // do not queue on one monitor. Each segment evicts its own least recently used entry past its share of
+    // the size limit.
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    private class Segment {
+        // Access-ordered, so the eldest entry is always the segment's least recently used one
+        private final LinkedHashMap<Long, CacheEntry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CacheEntry> eldest) {
+                if (size() > (maxSize + SEGMENTS - 1) / SEGMENTS) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        // Bumped on every invalidation so a load that raced with a write is not cached
+        private long invalidationCount = 0;
+    }
+
+    private static class CacheEntry {
+        private final Product product;
+        private final long expiresAt;
+
+        public CacheEntry(Product product, long expiresAt) {
+            this.product = product;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public ProductCacheService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    public Optional<Product> findById(Long id) {
+        long now = System.currentTimeMillis();
+        Segment segment = segmentFor(id);
+        long generation;
+        synchronized (segment) {
+            CacheEntry entry = segment.entries.get(id);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.incrementAndGet();
+                    return Optional.of(entry.product);
+                }
+                segment.entries.remove(id);
+                expirations.incrementAndGet();
+            }
+            generation = segment.invalidationCount;
+        }
+
+        misses.incrementAndGet();
+        Optional<Product> product = productRepository.findById(id);
+        product.ifPresent(p -> put(p, generation));
+        return product;
+    }
+
+    // Cached products plus one IN query for the rest; ids that do not exist are simply absent from the map
+    public Map<Long, Product> findAllById(Collection<Long> ids) {
+        long now = System.currentTimeMillis();
+        Map<Long, Product> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        // Generation of each missing id's segment, taken when the id was found missing
+        Map<Long, Long> generations = new HashMap<>();
+        for (Long id : ids) {
+            Segment segment = segmentFor(id);
+            synchronized (segment) {
+                CacheEntry entry = segment.entries.get(id);
+                if (entry != null && entry.expiresAt > now) {
+                    found.put(id, entry.product);
+                    continue;
+                }
+                if (entry != null) {
+                    segment.entries.remove(id);
+                    expirations.incrementAndGet();
+                }
+                missing.add(id);
+                generations.put(id, segment.invalidationCount);
+            }
+        }
+        hits.addAndGet(found.size());
+        misses.addAndGet(missing.size());
+
+        if (!missing.isEmpty()) {
+            for (Product product : productRepository.findAllById(missing)) {
+                found.put(product.getId(), product);
+                put(product, generations.get(product.getId()));
+            }
+        }
+        return found;
+    }
+
+    public void invalidate(Long id) {
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            segment.entries.remove(id);
+            segment.invalidationCount++;
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.invalidationCount++;
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        stats.put("size", size);
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("hitRate", requests > 0 ? (double) hitCount / requests : 0.0);
+        return stats;
+    }
+
+    private void put(Product product, long generation) {
+        Segment segment = segmentFor(product.getId());
+        synchronized (segment) {
+            if (generation != segment.invalidationCount) {
+                return;
+            }
+            segment.entries.put(product.getId(), new CacheEntry(product, System.currentTimeMillis() + ttlSeconds * 1000));
+        }
+    }
+
+    private Segment segmentFor(Long id) {
+        return segments[Math.floorMod(Long.hashCode(id), SEGMENTS)];
+    }
+}
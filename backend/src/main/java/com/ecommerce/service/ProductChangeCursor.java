@@ -0,0 +1,48 @@
+package com.ecommerce.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Opaque delta-sync cursor: the (stamp, id) of the last product and of the last tombstone served. Each
+// stream resumes strictly after its own position, so rows sharing a timestamp are never skipped or repeated.
+public class ProductChangeCursor {
+
+    private final LocalDateTime productStamp;
+    private final long productId;
+    private final LocalDateTime tombstoneStamp;
+    private final long tombstoneId;
+
+    public ProductChangeCursor(LocalDateTime productStamp, long productId,
+                               LocalDateTime tombstoneStamp, long tombstoneId) {
+        this.productStamp = productStamp;
+        this.productId = productId;
+        this.tombstoneStamp = tombstoneStamp;
+        this.tombstoneId = tombstoneId;
+    }
+
+    public LocalDateTime getProductStamp() { return productStamp; }
+    public long getProductId() { return productId; }
+    public LocalDateTime getTombstoneStamp() { return tombstoneStamp; }
+    public long getTombstoneId() { return tombstoneId; }
+
+    public String encode() {
+        String raw = productStamp + "|" + productId + "|" + tombstoneStamp + "|" + tombstoneId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductChangeCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new ProductChangeCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]),
+                    LocalDateTime.parse(parts[2]), Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new RuntimeException("Invalid cursor: " + cursor);
+        }
+    }
+}
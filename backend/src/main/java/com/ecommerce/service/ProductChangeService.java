@@ -0,0 +1,123 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductChangesResponse;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.ProductTombstone;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.ProductTombstoneRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+// Delta sync over the catalog. Stamps are epoch millis of updatedAt / deletedAt, the same clock
+// CatalogVersionService uses. `since` is inclusive and only starts a sync; later pages continue from
+// nextCursor, which pages on (stamp, id) so a run of rows sharing one timestamp, such as an import
+// batch, spans pages without losing any of them. Clients apply changes by id.
+// Stamps are taken when a statement runs, not when its transaction commits, so a row can become visible
+// with a stamp older than one already served. The feed therefore only serves rows older than a commit lag
+// window; a transaction that stays open longer than the window can still be missed.
+@Service
+public class ProductChangeService {
+
+    private final ProductRepository productRepository;
+    private final ProductTombstoneRepository productTombstoneRepository;
+
+    @Value("${product.changes.max-results:500}")
+    private int maxResults;
+
+    @Value("${product.changes.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays;
+
+    @Value("${product.changes.commit-lag-ms:10000}")
+    private long commitLagMs;
+
+    public ProductChangeService(ProductRepository productRepository,
+                                ProductTombstoneRepository productTombstoneRepository) {
+        this.productRepository = productRepository;
+        this.productTombstoneRepository = productTombstoneRepository;
+    }
+
+    public void recordDeletion(Long productId) {
+        productTombstoneRepository.save(new ProductTombstone(productId, LocalDateTime.now()));
+    }
+
+    // Starts from `since` (inclusive) when no cursor is given; a cursor from an earlier response takes precedence
+    public ProductChangesResponse getChangesSince(long since, String cursor, int limit) {
+        int size = Math.min(Math.max(limit, 1), maxResults);
+        ProductChangeCursor position;
+        if (cursor != null && !cursor.isEmpty()) {
+            position = ProductChangeCursor.decode(cursor);
+        } else {
+            LocalDateTime from = toDateTime(Math.max(since, 0));
+            position = new ProductChangeCursor(from, 0, from, 0);
+        }
+
+        // Rows newer than the lag window may still have uncommitted neighbours with earlier stamps, so the
+        // cursor never moves into it. One extra row from each side tells whether anything is left after this page.
+        LocalDateTime until = LocalDateTime.now().minusNanos(commitLagMs * 1_000_000);
+        List<Product> products = productRepository.findChangedAfter(
+                position.getProductStamp(), position.getProductId(), until, PageRequest.of(0, size + 1));
+        List<ProductTombstone> tombstones = productTombstoneRepository.findDeletedAfter(
+                position.getTombstoneStamp(), position.getTombstoneId(), until, PageRequest.of(0, size + 1));
+
+        // Merge both streams in stamp order up to the page size
+        List<Product> changed = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        int p = 0;
+        int t = 0;
+        LocalDateTime productStamp = position.getProductStamp();
+        long productId = position.getProductId();
+        LocalDateTime tombstoneStamp = position.getTombstoneStamp();
+        long tombstoneId = position.getTombstoneId();
+        long last = since;
+        while (changed.size() + deletedIds.size() < size && (p < products.size() || t < tombstones.size())) {
+            Product product = p < products.size() ? products.get(p) : null;
+            ProductTombstone tombstone = t < tombstones.size() ? tombstones.get(t) : null;
+            if (tombstone == null || (product != null && !product.getUpdatedAt().isAfter(tombstone.getDeletedAt()))) {
+                changed.add(product);
+                p++;
+                productStamp = product.getUpdatedAt();
+                productId = product.getId();
+                last = toMillis(productStamp);
+            } else {
+                deletedIds.add(tombstone.getProductId());
+                t++;
+                tombstoneStamp = tombstone.getDeletedAt();
+                tombstoneId = tombstone.getId();
+                last = toMillis(tombstoneStamp);
+            }
+        }
+
+        boolean hasMore = p < products.size() || t < tombstones.size();
+        String nextCursor = new ProductChangeCursor(productStamp, productId, tombstoneStamp, tombstoneId).encode();
+
+        // Deletions older than the retention window are gone, so an old position cannot be synced incrementally
+        long resumeFrom = toMillis(position.getTombstoneStamp());
+        boolean resyncRequired = resumeFrom > 0
+                && resumeFrom < toMillis(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+        return new ProductChangesResponse(changed, deletedIds, last, nextCursor, hasMore, resyncRequired);
+    }
+
+    @Scheduled(cron = "${product.changes.tombstone-purge-cron:0 30 3 * * *}")
+    public void purgeTombstones() {
+        int purged = productTombstoneRepository.deleteOlderThan(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+        if (purged > 0) {
+            System.out.println("Purged " + purged + " product tombstones");
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,47 @@
+package com.ecommerce.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque keyset cursor: the sort key and id of the last row served, plus how many rows came before it
+public class ProductCursor {
+
+    private final String sortBy;
+    private final String sortDir;
+    private final Long lastId;
+    private final long skipped;
+    private final String lastValue;
+
+    public ProductCursor(String sortBy, String sortDir, Long lastId, long skipped, String lastValue) {
+        this.sortBy = sortBy;
+        this.sortDir = sortDir;
+        this.lastId = lastId;
+        this.skipped = skipped;
+        this.lastValue = lastValue;
+    }
+
+    public String getSortBy() { return sortBy; }
+    public String getSortDir() { return sortDir; }
+    public Long getLastId() { return lastId; }
+    public long getSkipped() { return skipped; }
+    public String getLastValue() { return lastValue; }
+
+    public String encode() {
+        String raw = sortBy + "|" + sortDir + "|" + lastId + "|" + skipped + "|" + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // The value goes last so it may itself contain the separator
+            String[] parts = raw.split("\\|", 5);
+            if (parts.length != 5) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new ProductCursor(parts[0], parts[1], Long.valueOf(parts[2]), Long.parseLong(parts[3]), parts[4]);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+@Service
+public class ProductExportService {
+
+    private static final String[] COLUMNS = {"id", "sku", "name", "description", "price", "stockQuantity", "category",
+            "brand", "imageUrl", "rating", "reviewCount", "soldCount", "featured", "active", "createdAt", "updatedAt"};
+
+    private static final String SELECT_SQL =
+            "SELECT id, sku, name, description, price, stock_quantity, category, brand, image_url, rating, " +
+            "review_count, sold_count, featured, active, created_at, updated_at FROM products";
+
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${product.export.fetch-size:1000}")
+    private int fetchSize;
+
+    private volatile JdbcTemplate streamingTemplate;
+
+    public ProductExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper) {
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public static boolean isSupportedFormat(String format) {
+        return format.equalsIgnoreCase("ndjson") || format.equalsIgnoreCase("csv");
+    }
+
+    // One forward-only pass over products in id order; rows are written as they arrive
+    public void export(String format, boolean includeInactive, OutputStream outputStream) {
+        String sql = SELECT_SQL + (includeInactive ? "" : " WHERE active = true") + " ORDER BY id";
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        boolean csv = format.equalsIgnoreCase("csv");
+
+        // The transaction keeps one connection with autocommit off, which PostgreSQL needs to use a cursor
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                if (csv) {
+                    writer.write(String.join(",", COLUMNS));
+                    writer.write('\n');
+                    getStreamingTemplate().query(sql, rs -> {
+                        writeCsvRow(rs, writer);
+                    });
+                } else {
+                    JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+                    generator.setRootValueSeparator(null);
+                    getStreamingTemplate().query(sql, rs -> {
+                        writeJsonRow(rs, generator, writer);
+                    });
+                    generator.flush();
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private JdbcTemplate getStreamingTemplate() {
+        if (streamingTemplate == null) {
+            JdbcTemplate template = new JdbcTemplate(dataSource);
+            // MySQL Connector/J only streams row by row with this sentinel; other drivers take a real fetch size
+            template.setFetchSize(isMySql() ? Integer.MIN_VALUE : fetchSize);
+            streamingTemplate = template;
+        }
+        return streamingTemplate;
+    }
+
+    private boolean isMySql() {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to inspect database: " + e.getMessage());
+        }
+    }
+
+    private void writeJsonRow(ResultSet rs, JsonGenerator generator, Writer writer) throws SQLException {
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong("id"));
+            generator.writeStringField("sku", rs.getString("sku"));
+            generator.writeStringField("name", rs.getString("name"));
+            generator.writeStringField("description", rs.getString("description"));
+            writeDecimal(generator, "price", rs.getBigDecimal("price"));
+            generator.writeNumberField("stockQuantity", rs.getInt("stock_quantity"));
+            generator.writeStringField("category", rs.getString("category"));
+            generator.writeStringField("brand", rs.getString("brand"));
+            generator.writeStringField("imageUrl", rs.getString("image_url"));
+            writeDecimal(generator, "rating", rs.getBigDecimal("rating"));
+            generator.writeNumberField("reviewCount", rs.getInt("review_count"));
+            generator.writeNumberField("soldCount", rs.getInt("sold_count"));
+            generator.writeBooleanField("featured", rs.getBoolean("featured"));
+            generator.writeBooleanField("active", rs.getBoolean("active"));
+            generator.writeStringField("createdAt", timestamp(rs.getTimestamp("created_at")));
+            generator.writeStringField("updatedAt", timestamp(rs.getTimestamp("updated_at")));
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsvRow(ResultSet rs, Writer writer) throws SQLException {
+        String[] values = {
+                String.valueOf(rs.getLong("id")),
+                rs.getString("sku"),
+                rs.getString("name"),
+                rs.getString("description"),
+                decimal(rs.getBigDecimal("price")),
+                String.valueOf(rs.getInt("stock_quantity")),
+                rs.getString("category"),
+                rs.getString("brand"),
+                rs.getString("image_url"),
+                decimal(rs.getBigDecimal("rating")),
+                String.valueOf(rs.getInt("review_count")),
+                String.valueOf(rs.getInt("sold_count")),
+                String.valueOf(rs.getBoolean("featured")),
+                String.valueOf(rs.getBoolean("active")),
+                timestamp(rs.getTimestamp("created_at")),
+                timestamp(rs.getTimestamp("updated_at"))
+        };
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(csvEscape(values[i]));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeDecimal(JsonGenerator generator, String field, BigDecimal value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, value);
+        }
+    }
+
+    private static String decimal(BigDecimal value) {
+        return value != null ? value.toPlainString() : null;
+    }
+
+    private static String timestamp(Timestamp value) {
+        return value != null ? value.toLocalDateTime().toString() : null;
+    }
+
+    private static String csvEscape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,337 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductFacetsResponse;
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Service
+public class ProductFacetService {
+
+    // Upper bounds (exclusive) of the price buckets; anything above the last one lands in "1000+"
+    private static final long[] PRICE_BUCKET_BOUNDS = {25, 50, 100, 250, 500, 1000};
+    private static final String[] PRICE_BUCKET_LABELS = {"0-25", "25-50", "50-100", "100-250", "250-500", "500-1000", "1000+"};
+
+    private final ProductRepository productRepository;
+
+    // Replaced as a whole by rebuild, so requests keep using the previous bitmaps while new ones load
+    private Bitmaps bitmaps = new Bitmaps();
+
+    // While a rebuild loads, index and remove calls are also recorded here (a Product or a removed id) and
+    // replayed onto the new bitmaps before the swap, so updates made during the load are not lost
+    private List<Object> replayLog;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready = false;
+
+    // One bitmap per facet value, indexed by product id, over active products only. Plain BitSets rather than
+    // compressed (Roaring) bitmaps: ids come from one identity sequence, so the sets are dense and a BitSet
+    // costs one bit per id ever issued, with no extra dependency.
+    private static class Bitmaps {
+        private final BitSet activeProducts = new BitSet();
+        private final BitSet inStockProducts = new BitSet();
+        private final Map<String, BitSet> categoryBitmaps = new HashMap<>();
+        private final Map<String, BitSet> brandBitmaps = new HashMap<>();
+        private final BitSet[] priceBitmaps = new BitSet[PRICE_BUCKET_LABELS.length];
+
+        // Last indexed state per product, so an update can clear the bits it set before
+        private final Map<Integer, FacetEntry> entries = new HashMap<>();
+
+        public Bitmaps() {
+            for (int i = 0; i < priceBitmaps.length; i++) {
+                priceBitmaps[i] = new BitSet();
+            }
+        }
+
+        private void index(Product product) {
+            int bit = toBit(product.getId());
+            remove(bit);
+            if (!product.isActive()) {
+                return;
+            }
+
+            FacetEntry entry = new FacetEntry(product.getCategory(), product.getBrand(),
+                    priceBucket(product.getPrice()), product.getPrice());
+            activeProducts.set(bit);
+            if (product.getStockQuantity() != null && product.getStockQuantity() > 0) {
+                inStockProducts.set(bit);
+            }
+            if (entry.category != null) {
+                categoryBitmaps.computeIfAbsent(entry.category, c -> new BitSet()).set(bit);
+            }
+            if (entry.brand != null) {
+                brandBitmaps.computeIfAbsent(entry.brand, b -> new BitSet()).set(bit);
+            }
+            priceBitmaps[entry.priceBucket].set(bit);
+            entries.put(bit, entry);
+        }
+
+        private void remove(int bit) {
+            FacetEntry entry = entries.remove(bit);
+            if (entry == null) {
+                return;
+            }
+            activeProducts.clear(bit);
+            inStockProducts.clear(bit);
+            clearValue(categoryBitmaps, entry.category, bit);
+            clearValue(brandBitmaps, entry.brand, bit);
+            priceBitmaps[entry.priceBucket].clear(bit);
+        }
+    }
+
+    private static class FacetEntry {
+        private final String category;
+        private final String brand;
+        private final int priceBucket;
+        private final BigDecimal price;
+
+        public FacetEntry(String category, String brand, int priceBucket, BigDecimal price) {
+            this.category = category;
+            this.brand = brand;
+            this.priceBucket = priceBucket;
+            this.price = price;
+        }
+    }
+
+    public ProductFacetService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            replayLog = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Bitmaps rebuilt = new Bitmaps();
+        boolean loaded = false;
+        try {
+            for (Product product : productRepository.findAll()) {
+                rebuilt.index(product);
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (loaded) {
+                    for (Object update : replayLog) {
+                        if (update instanceof Product product) {
+                            rebuilt.index(product);
+                        } else {
+                            rebuilt.remove(toBit((Long) update));
+                        }
+                    }
+                    bitmaps = rebuilt;
+                }
+                replayLog = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        ready = true;
+    }
+
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            bitmaps.index(product);
+            if (replayLog != null) {
+                replayLog.add(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            bitmaps.remove(toBit(productId));
+            if (replayLog != null) {
+                replayLog.add(productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ProductFacetsResponse getFacets(String search, String category, String brand,
+                                           Double minPrice, Double maxPrice) {
+        // A request that arrives before the startup build waits for it instead of failing
+        if (!ready) {
+            ensureBuilt();
+        }
+
+        // Resolve the text part of the filter before taking the lock, with the listing's own LIKE match
+        BitSet searchMatches = null;
+        if (search != null && !search.isEmpty()) {
+            searchMatches = new BitSet();
+            for (Long id : productRepository.findListingSearchIds(search)) {
+                searchMatches.set(toBit(id));
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            Bitmaps current = bitmaps;
+            // Only read below, so the shared active set is used as is unless the search narrows it
+            BitSet base = current.activeProducts;
+            if (searchMatches != null) {
+                searchMatches.and(base);
+                base = searchMatches;
+            }
+
+            BitSet categoryFilter = valueFilter(current.categoryBitmaps, category);
+            BitSet brandFilter = valueFilter(current.brandBitmaps, brand);
+            BitSet priceFilter = priceFilter(current, minPrice, maxPrice);
+
+            // Each facet is counted against every filter except its own, so the
+            // other values of a selected facet keep meaningful counts
+            BitSet categoryContext = intersect(base, brandFilter, priceFilter);
+            BitSet brandContext = intersect(base, categoryFilter, priceFilter);
+            BitSet priceContext = intersect(base, categoryFilter, brandFilter);
+            BitSet matching = intersect(base, categoryFilter, brandFilter, priceFilter);
+
+            Map<String, Integer> priceRanges = new LinkedHashMap<>();
+            for (int i = 0; i < current.priceBitmaps.length; i++) {
+                priceRanges.put(PRICE_BUCKET_LABELS[i], andCardinality(current.priceBitmaps[i], priceContext));
+            }
+
+            int total = matching.cardinality();
+            int inStock = andCardinality(current.inStockProducts, matching);
+
+            return new ProductFacetsResponse(total,
+                    countValues(current.categoryBitmaps, categoryContext),
+                    countValues(current.brandBitmaps, brandContext),
+                    priceRanges, inStock, total - inStock);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private synchronized void ensureBuilt() {
+        if (!ready) {
+            rebuild();
+        }
+    }
+
+    // ORs the buckets that lie wholly inside [min, max]; only the products of the one or two buckets the
+    // bounds cut through are compared by price
+    private static BitSet priceFilter(Bitmaps bitmaps, Double minPrice, Double maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        BigDecimal min = minPrice != null ? BigDecimal.valueOf(minPrice) : null;
+        BigDecimal max = maxPrice != null ? BigDecimal.valueOf(maxPrice) : null;
+
+        BitSet result = new BitSet();
+        for (int bucket = 0; bucket < bitmaps.priceBitmaps.length; bucket++) {
+            // Bucket covers [lower, upper); the last one has no upper bound
+            BigDecimal lower = bucket == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(PRICE_BUCKET_BOUNDS[bucket - 1]);
+            BigDecimal upper = bucket < PRICE_BUCKET_BOUNDS.length ? BigDecimal.valueOf(PRICE_BUCKET_BOUNDS[bucket]) : null;
+            boolean belowMin = min != null && upper != null && upper.compareTo(min) <= 0;
+            boolean aboveMax = max != null && lower.compareTo(max) > 0;
+            if (belowMin || aboveMax) {
+                continue;
+            }
+            BitSet members = bitmaps.priceBitmaps[bucket];
+            boolean inside = (min == null || lower.compareTo(min) >= 0)
+                    && (max == null || (upper != null && upper.compareTo(max) <= 0));
+            if (inside) {
+                result.or(members);
+                continue;
+            }
+            for (int bit = members.nextSetBit(0); bit >= 0; bit = members.nextSetBit(bit + 1)) {
+                BigDecimal price = bitmaps.entries.get(bit).price;
+                if (price != null && (min == null || price.compareTo(min) >= 0)
+                        && (max == null || price.compareTo(max) <= 0)) {
+                    result.set(bit);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static BitSet valueFilter(Map<String, BitSet> bitmaps, String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        BitSet bitmap = bitmaps.get(value);
+        return bitmap != null ? bitmap : new BitSet();
+    }
+
+    private static BitSet intersect(BitSet base, BitSet... filters) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private static int andCardinality(BitSet bitmap, BitSet context) {
+        BitSet result = (BitSet) bitmap.clone();
+        result.and(context);
+        return result.cardinality();
+    }
+
+    private static Map<String, Integer> countValues(Map<String, BitSet> bitmaps, BitSet context) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        for (Map.Entry<String, BitSet> entry : bitmaps.entrySet()) {
+            int count = andCardinality(entry.getValue(), context);
+            if (count > 0) {
+                counts.add(new AbstractMap.SimpleEntry<>(entry.getKey(), count));
+            }
+        }
+        counts.sort((a, b) -> b.getValue().compareTo(a.getValue()));
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : counts) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    private static void clearValue(Map<String, BitSet> bitmaps, String value, int bit) {
+        if (value == null) {
+            return;
+        }
+        BitSet bitmap = bitmaps.get(value);
+        if (bitmap != null) {
+            bitmap.clear(bit);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(value);
+            }
+        }
+    }
+
+    private static int priceBucket(BigDecimal price) {
+        if (price == null) {
+            return 0;
+        }
+        for (int i = 0; i < PRICE_BUCKET_BOUNDS.length; i++) {
+            if (price.compareTo(BigDecimal.valueOf(PRICE_BUCKET_BOUNDS[i])) < 0) {
+                return i;
+            }
+        }
+        return PRICE_BUCKET_BOUNDS.length;
+    }
+
+    private static int toBit(Long productId) {
+        if (productId == null || productId < 0 || productId > Integer.MAX_VALUE) {
+            throw new RuntimeException("Product id out of facet index range: " + productId);
+        }
+        return productId.intValue();
+    }
+}
@@ -0,0 +1,415 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductImportJob;
+import com.ecommerce.dto.ProductImportRow;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+public class ProductImportService {
+
+    private static final int MAX_TRACKED_JOBS = 50;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (sku, name, description, price, stock_quantity, category, brand, image_url, " +
+            "featured, active, rating, review_count, sold_count, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0, 0, ?, ?)";
+
+    // Native upserts on the unique SKU. A product on flash sale keeps its stock: the sale sells it from the
+    // shards and the rollup would overwrite it.
+    private static final String MYSQL_UPSERT_SQL = INSERT_SQL + " ON DUPLICATE KEY UPDATE " +
+            "name = VALUES(name), description = VALUES(description), price = VALUES(price), " +
+            "stock_quantity = CASE WHEN EXISTS (SELECT 1 FROM product_flash_sales f WHERE f.product_id = products.id) " +
+            "THEN stock_quantity ELSE VALUES(stock_quantity) END, category = VALUES(category), brand = VALUES(brand), " +
+            "image_url = VALUES(image_url), featured = VALUES(featured), active = VALUES(active), " +
+            "updated_at = VALUES(updated_at)";
+
+    private static final String POSTGRES_UPSERT_SQL = INSERT_SQL + " ON CONFLICT (sku) DO UPDATE SET " +
+            "name = EXCLUDED.name, description = EXCLUDED.description, price = EXCLUDED.price, " +
+            "stock_quantity = CASE WHEN EXISTS (SELECT 1 FROM product_flash_sales f WHERE f.product_id = products.id) " +
+            "THEN products.stock_quantity ELSE EXCLUDED.stock_quantity END, category = EXCLUDED.category, " +
+            "brand = EXCLUDED.brand, image_url = EXCLUDED.image_url, featured = EXCLUDED.featured, " +
+            "active = EXCLUDED.active, updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${product.import.batch-size:1000}")
+    private int batchSize;
+
+    private volatile String upsertSql;
+
+    // One import at a time; uploads queue behind the running job
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, ProductImportJob> jobs = new ConcurrentHashMap<>();
+    private final Deque<String> jobOrder = new ArrayDeque<>();
+
+    public ProductImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                ProductService productService, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productService = productService;
+        this.objectMapper = objectMapper.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    // Spools the upload to a temp file (constant memory) and imports it in the background
+    public ProductImportJob startImport(InputStream body, String format) {
+        String normalizedFormat = format.toLowerCase();
+        if (!normalizedFormat.equals("csv") && !normalizedFormat.equals("ndjson")) {
+            throw new RuntimeException("Unsupported import format: " + format);
+        }
+
+        Path file;
+        try {
+            file = Files.createTempFile("product-import-", "." + normalizedFormat);
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to receive import file: " + e.getMessage());
+        }
+
+        ProductImportJob job = new ProductImportJob(UUID.randomUUID().toString(), normalizedFormat);
+        track(job);
+        worker.submit(() -> runImport(job, file));
+        return job;
+    }
+
+    public ProductImportJob getJob(String jobId) {
+        ProductImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Import job not found: " + jobId);
+        }
+        return job;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void runImport(ProductImportJob job, Path file) {
+        job.setStatus("RUNNING");
+        String status = "COMPLETED";
+        String failure = null;
+        // Batches commit one at a time, so rows already written must reach the indexes even if the job fails later
+        boolean written = false;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<ProductImportRow> batch = new ArrayList<>(batchSize);
+            Iterator<ProductImportRow> rows = job.getFormat().equals("csv")
+                    ? new CsvRowIterator(reader)
+                    : ndjsonRows(reader);
+
+            long rowNumber = 0;
+            while (true) {
+                ProductImportRow row;
+                rowNumber++;
+                try {
+                    if (!rows.hasNext()) {
+                        break;
+                    }
+                    row = rows.next();
+                } catch (RuntimeException e) {
+                    // A malformed row is rejected; the stream carries on with the next one
+                    job.incrementRowsRead();
+                    job.reject(rowNumber, e.getMessage());
+                    continue;
+                }
+                job.incrementRowsRead();
+
+                String error = validate(row);
+                if (error != null) {
+                    job.reject(rowNumber, error);
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch, job);
+                    written = true;
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch, job);
+                written = true;
+            }
+        } catch (Exception e) {
+            status = "FAILED";
+            failure = e.getMessage();
+            System.err.println("Product import " + job.getId() + " failed: " + e.getMessage());
+        } finally {
+            if (written) {
+                try {
+                    productService.refreshCatalogIndexes();
+                } catch (RuntimeException e) {
+                    System.err.println("Failed to refresh catalog after import " + job.getId() + ": " + e.getMessage());
+                }
+            }
+            job.finish(status, failure);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Failed to delete import file " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Upsert by SKU: one batched native upsert per batch, in one transaction. The unique constraint on sku
+    // decides insert versus update, so concurrent imports or product creates cannot duplicate a SKU.
+    private void writeBatch(List<ProductImportRow> rows, ProductImportJob job) {
+        // Within a batch the last occurrence of a SKU wins
+        Map<String, ProductImportRow> bySku = new LinkedHashMap<>();
+        for (ProductImportRow row : rows) {
+            bySku.put(row.getSku(), row);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Only feeds the job's inserted/updated counts; drivers do not report which rows an upsert inserted
+            Set<String> existing = findExistingSkus(bySku.keySet());
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+            List<Object[]> upserts = new ArrayList<>();
+            for (ProductImportRow row : bySku.values()) {
+                upserts.add(new Object[] {row.getSku(), row.getName(), row.getDescription(), row.getPrice(),
+                        stockOf(row), row.getCategory(), row.getBrand(), row.getImageUrl(),
+                        isTrue(row.getFeatured(), false), isTrue(row.getActive(), true), now, now});
+            }
+            jdbcTemplate.batchUpdate(upsertSql(), upserts);
+            job.addRowsUpdated(existing.size());
+            job.addRowsInserted(upserts.size() - existing.size());
+        });
+    }
+
+    private String upsertSql() {
+        if (upsertSql == null) {
+            boolean mySql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql"));
+            upsertSql = mySql ? MYSQL_UPSERT_SQL : POSTGRES_UPSERT_SQL;
+        }
+        return upsertSql;
+    }
+
+    private Set<String> findExistingSkus(Collection<String> skus) {
+        String placeholders = String.join(",", Collections.nCopies(skus.size(), "?"));
+        List<String> found = jdbcTemplate.queryForList(
+                "SELECT sku FROM products WHERE sku IN (" + placeholders + ")", String.class, skus.toArray());
+        return new HashSet<>(found);
+    }
+
+    private static String validate(ProductImportRow row) {
+        if (row.getSku() == null || row.getSku().isBlank()) {
+            return "sku is required";
+        }
+        if (row.getName() == null || row.getName().isBlank()) {
+            return "name is required";
+        }
+        if (row.getPrice() == null || row.getPrice().signum() < 0) {
+            return "price must be zero or positive";
+        }
+        if (row.getStockQuantity() != null && row.getStockQuantity() < 0) {
+            return "stockQuantity must be zero or positive";
+        }
+        return null;
+    }
+
+    private static int stockOf(ProductImportRow row) {
+        return row.getStockQuantity() != null ? row.getStockQuantity() : 0;
+    }
+
+    private static boolean isTrue(Boolean value, boolean defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
+    // One JSON object per line; a bad line only rejects that row
+    private Iterator<ProductImportRow> ndjsonRows(BufferedReader reader) {
+        return new Iterator<>() {
+            private String nextLine;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (nextLine == null) {
+                        String line = reader.readLine();
+                        if (line == null) {
+                            return false;
+                        }
+                        if (!line.isBlank()) {
+                            nextLine = line;
+                        }
+                    }
+                    return true;
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to read NDJSON: " + e.getMessage());
+                }
+            }
+
+            @Override
+            public ProductImportRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String line = nextLine;
+                nextLine = null;
+                try {
+                    return objectMapper.readValue(line, ProductImportRow.class);
+                } catch (IOException e) {
+                    throw new RuntimeException("Invalid JSON: " + e.getMessage());
+                }
+            }
+        };
+    }
+
+    private synchronized void track(ProductImportJob job) {
+        jobs.put(job.getId(), job);
+        jobOrder.addLast(job.getId());
+        while (jobOrder.size() > MAX_TRACKED_JOBS) {
+            jobs.remove(jobOrder.removeFirst());
+        }
+    }
+
+    // Minimal streaming RFC 4180 reader: header row first, quoted fields may contain commas and newlines
+    private static class CsvRowIterator implements Iterator<ProductImportRow> {
+        private final BufferedReader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private List<String> nextRecord;
+
+        public CsvRowIterator(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = readRecord();
+            if (header == null) {
+                throw new IOException("CSV file is empty");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim(), i);
+            }
+            if (!columns.containsKey("sku") || !columns.containsKey("name") || !columns.containsKey("price")) {
+                throw new IOException("CSV header must contain sku, name and price columns");
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRecord == null) {
+                try {
+                    nextRecord = readRecord();
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to read CSV: " + e.getMessage());
+                }
+            }
+            return nextRecord != null;
+        }
+
+        @Override
+        public ProductImportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<String> record = nextRecord;
+            nextRecord = null;
+
+            ProductImportRow row = new ProductImportRow();
+            row.setSku(value(record, "sku"));
+            row.setName(value(record, "name"));
+            row.setDescription(value(record, "description"));
+            row.setCategory(value(record, "category"));
+            row.setBrand(value(record, "brand"));
+            row.setImageUrl(value(record, "imageUrl"));
+            try {
+                String price = value(record, "price");
+                row.setPrice(price != null ? new BigDecimal(price) : null);
+                String stock = value(record, "stockQuantity");
+                row.setStockQuantity(stock != null ? Integer.valueOf(stock) : null);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Invalid number: " + e.getMessage());
+            }
+            String featured = value(record, "featured");
+            row.setFeatured(featured != null ? Boolean.valueOf(featured) : null);
+            String active = value(record, "active");
+            row.setActive(active != null ? Boolean.valueOf(active) : null);
+            return row;
+        }
+
+        private String value(List<String> record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size()) {
+                return null;
+            }
+            String value = record.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private List<String> readRecord() throws IOException {
+            String line = reader.readLine();
+            while (line != null && line.isBlank()) {
+                line = reader.readLine();
+            }
+            if (line == null) {
+                return null;
+            }
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+                    if (quoted) {
+                        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                            field.append('"');
+                            i++;
+                        } else if (c == '"') {
+                            quoted = false;
+                        } else {
+                            field.append(c);
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                // Quoted field spans lines
+                line = reader.readLine();
+                if (line == null) {
+                    throw new IOException("Unterminated quoted field");
+                }
+                field.append('\n');
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.Product;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Caches filtered listing pages. An entry is fresh while the catalog version it was loaded at is still
+// current and it is younger than the TTL. Once only the TTL has run out it may be served for a short stale
+// window while one background load replaces it; a version change always reloads
+@Service
+public class ProductListingCacheService {
+
+    private final CatalogVersionService catalogVersionService;
+
+    @Value("${product.listing-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${product.listing-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${product.listing-cache.stale-while-revalidate-seconds:10}")
+    private long staleWhileRevalidateSeconds;
+
+    // Access-ordered, so the eldest entry is always the least recently used one
+    private final LinkedHashMap<ListingKey, CacheEntry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ListingKey, CacheEntry> eldest) {
+            if (size() > maxEntries) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // At most one load per key at a time; concurrent misses wait on the same future
+    private final Map<ListingKey, CompletableFuture<CacheEntry>> inFlight = new ConcurrentHashMap<>();
+
+    private final ExecutorService refresher = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "listing-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private static class CacheEntry {
+        private final Page<Product> page;
+        private final long version;
+        private final long loadedAt;
+
+        public CacheEntry(Page<Product> page, long version, long loadedAt) {
+            this.page = page;
+            this.version = version;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static class ListingKey {
+        private final String search;
+        private final String category;
+        private final String brand;
+        private final BigDecimal minPrice;
+        private final BigDecimal maxPrice;
+        private final String sortBy;
+        private final boolean descending;
+        private final int page;
+        private final int size;
+
+        public ListingKey(String search, String category, String brand, BigDecimal minPrice, BigDecimal maxPrice,
+                          String sortBy, String sortDir, Pageable pageable) {
+            this.search = emptyToNull(search);
+            this.category = emptyToNull(category);
+            this.brand = emptyToNull(brand);
+            // 10 and 10.00 filter identically, so they share an entry
+            this.minPrice = minPrice.stripTrailingZeros();
+            this.maxPrice = maxPrice.stripTrailingZeros();
+            this.sortBy = sortBy;
+            this.descending = sortDir.equalsIgnoreCase("desc");
+            this.page = pageable.getPageNumber();
+            this.size = pageable.getPageSize();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ListingKey)) return false;
+            ListingKey other = (ListingKey) o;
+            return descending == other.descending && page == other.page && size == other.size
+                    && Objects.equals(search, other.search) && Objects.equals(category, other.category)
+                    && Objects.equals(brand, other.brand) && Objects.equals(minPrice, other.minPrice)
+                    && Objects.equals(maxPrice, other.maxPrice) && Objects.equals(sortBy, other.sortBy);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(search, category, brand, minPrice, maxPrice, sortBy, descending, page, size);
+        }
+
+        private static String emptyToNull(String value) {
+            return value == null || value.isEmpty() ? null : value;
+        }
+    }
+
+    public ProductListingCacheService(CatalogVersionService catalogVersionService) {
+        this.catalogVersionService = catalogVersionService;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    public Page<Product> getListing(String search, String category, String brand,
+                                    BigDecimal minPrice, BigDecimal maxPrice, String sortBy, String sortDir,
+                                    Pageable pageable, Supplier<Page<Product>> loader) {
+        ListingKey key = new ListingKey(search, category, brand, minPrice, maxPrice, sortBy, sortDir, pageable);
+        long now = System.currentTimeMillis();
+        CacheEntry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        // A page from an older catalog version would not match the ETag the controller already set
+        if (entry != null && entry.version == catalogVersionService.getChangeStamp()) {
+            long age = now - entry.loadedAt;
+            if (age < ttlSeconds * 1000) {
+                hits.incrementAndGet();
+                return entry.page;
+            }
+            if (age < (ttlSeconds + staleWhileRevalidateSeconds) * 1000) {
+                staleHits.incrementAndGet();
+                refreshInBackground(key, loader);
+                return entry.page;
+            }
+        }
+
+        misses.incrementAndGet();
+        return load(key, loader).page;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get() + staleHits.get();
+        long requests = hitCount + misses.get();
+
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("staleWhileRevalidateSeconds", staleWhileRevalidateSeconds);
+        stats.put("hits", hits.get());
+        stats.put("staleHits", staleHits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("hitRate", requests > 0 ? (double) hitCount / requests : 0.0);
+        return stats;
+    }
+
+    private CacheEntry load(ListingKey key, Supplier<Page<Product>> loader) {
+        CompletableFuture<CacheEntry> created = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        return runLoad(key, loader, created);
+    }
+
+    private void refreshInBackground(ListingKey key, Supplier<Page<Product>> loader) {
+        CompletableFuture<CacheEntry> created = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, created) != null) {
+            return;
+        }
+        refresher.execute(() -> {
+            try {
+                runLoad(key, loader, created);
+            } catch (RuntimeException e) {
+                System.err.println("Failed to refresh product listing: " + e.getMessage());
+            }
+        });
+    }
+
+    private CacheEntry runLoad(ListingKey key, Supplier<Page<Product>> loader, CompletableFuture<CacheEntry> future) {
+        try {
+            // Read the version first, so a write that lands during the query leaves the entry already stale
+            long version = catalogVersionService.getChangeStamp();
+            CacheEntry entry = new CacheEntry(loader.get(), version, System.currentTimeMillis());
+            synchronized (entries) {
+                entries.put(key, entry);
+            }
+            future.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.ecommerce.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class ProductRecommendationService {
+
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${recommendations.neighbors-per-product:20}")
+    private int neighborsPerProduct;
+
+    // Co-purchased products counted per product; the least counted are pruned beyond this many
+    @Value("${recommendations.max-tracked-per-product:200}")
+    private int maxTrackedPerProduct;
+
+    @Value("${recommendations.fetch-size:1000}")
+    private int fetchSize;
+
+    // Co-purchase counts: product -> (other product -> number of orders containing both).
+    // Replaced as a whole by rebuild; guarded by this service's monitor.
+    private Map<Long, Map<Long, Integer>> coPurchases = new HashMap<>();
+
+    // Orders recorded while a rebuild is loading, replayed onto the new counts before the swap
+    private List<Set<Long>> replayLog;
+
+    // Precomputed top-K neighbors per product, read without locking
+    private final Map<Long, List<Long>> neighbors = new ConcurrentHashMap<>();
+
+    public ProductRecommendationService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    // Bulk build from order history: one streamed, ordered pass over order_items, one order buffered at a time.
+    // Counts load into a separate map, so live orders keep updating the current one until the swap.
+    // An order committed just before the read starts may be counted twice, which only nudges its pairs.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            if (replayLog != null) {
+                return;
+            }
+            replayLog = new ArrayList<>();
+        }
+
+        Map<Long, Map<Long, Integer>> rebuilt = new HashMap<>();
+        boolean loaded = false;
+        try {
+            Set<Long> current = new HashSet<>();
+            long[] currentOrder = {-1};
+            JdbcTemplate streaming = streamingTemplate();
+            // The transaction keeps one connection with autocommit off, which PostgreSQL needs to use a cursor
+            transactionTemplate.executeWithoutResult(status ->
+                    streaming.query("SELECT order_id, product_id FROM order_items ORDER BY order_id", rs -> {
+                        long orderId = rs.getLong("order_id");
+                        if (orderId != currentOrder[0]) {
+                            countPairs(rebuilt, current);
+                            current.clear();
+                            currentOrder[0] = orderId;
+                        }
+                        current.add(rs.getLong("product_id"));
+                    }));
+            countPairs(rebuilt, current);
+            loaded = true;
+        } finally {
+            synchronized (this) {
+                if (loaded) {
+                    for (Set<Long> order : replayLog) {
+                        countPairs(rebuilt, order);
+                    }
+                    coPurchases = rebuilt;
+                    neighbors.keySet().retainAll(rebuilt.keySet());
+                    for (Long productId : rebuilt.keySet()) {
+                        recomputeNeighbors(productId);
+                    }
+                }
+                replayLog = null;
+            }
+        }
+        System.out.println("Recommendations built for " + neighbors.size() + " products");
+    }
+
+    // Applies an order once its transaction commits, so rolled-back checkouts never count
+    public void recordOrderAfterCommit(Collection<Long> productIds) {
+        Set<Long> distinct = new HashSet<>(productIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordOrder(distinct);
+                }
+            });
+        } else {
+            recordOrder(distinct);
+        }
+    }
+
+    public List<Long> getNeighbors(Long productId) {
+        return neighbors.getOrDefault(productId, Collections.emptyList());
+    }
+
+    private synchronized void recordOrder(Set<Long> productIds) {
+        if (productIds.size() < 2) {
+            return;
+        }
+        countPairs(coPurchases, productIds);
+        if (replayLog != null) {
+            replayLog.add(productIds);
+        }
+        for (Long productId : productIds) {
+            recomputeNeighbors(productId);
+        }
+    }
+
+    private void countPairs(Map<Long, Map<Long, Integer>> counts, Set<Long> productIds) {
+        for (Long a : productIds) {
+            Map<Long, Integer> related = counts.computeIfAbsent(a, id -> new HashMap<>());
+            for (Long b : productIds) {
+                if (!a.equals(b)) {
+                    related.merge(b, 1, Integer::sum);
+                }
+            }
+            // Pruned in bulk once the map doubles past the cap, so the cost is amortized over many orders
+            if (related.size() >= 2 * Math.max(maxTrackedPerProduct, neighborsPerProduct)) {
+                prune(related);
+            }
+        }
+    }
+
+    // Keeps the most co-purchased products; rarely co-bought ones drop out and may come back with a fresh count
+    private void prune(Map<Long, Integer> related) {
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(related.entrySet());
+        entries.sort(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        int keep = Math.max(maxTrackedPerProduct, neighborsPerProduct);
+        for (int i = keep; i < entries.size(); i++) {
+            related.remove(entries.get(i).getKey());
+        }
+    }
+
+    private JdbcTemplate streamingTemplate() {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        // MySQL Connector/J only streams row by row with this sentinel; other drivers take a real fetch size
+        template.setFetchSize(isMySql() ? Integer.MIN_VALUE : fetchSize);
+        return template;
+    }
+
+    private boolean isMySql() {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to inspect database: " + e.getMessage());
+        }
+    }
+
+    private void recomputeNeighbors(Long productId) {
+        Map<Long, Integer> counts = coPurchases.get(productId);
+        if (counts == null || counts.isEmpty()) {
+            neighbors.remove(productId);
+            return;
+        }
+
+        // Bounded min-heap keeps the K most co-purchased products without sorting them all
+        PriorityQueue<Map.Entry<Long, Integer>> heap = new PriorityQueue<>(
+                (a, b) -> a.getValue().equals(b.getValue())
+                        ? Long.compare(b.getKey(), a.getKey())
+                        : Integer.compare(a.getValue(), b.getValue()));
+        for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > neighborsPerProduct) {
+                heap.poll();
+            }
+        }
+
+        Long[] ranked = new Long[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = heap.poll().getKey();
+        }
+        neighbors.put(productId, List.of(ranked));
+    }
+}
@@ -0,0 +1,507 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Service
+public class ProductSearchService {
+
+    // Fields scored by BM25F: name, brand, category, description
+    private static final int FIELD_NAME = 0;
+    private static final int FIELD_BRAND = 1;
+    private static final int FIELD_CATEGORY = 2;
+    private static final int FIELD_DESCRIPTION = 3;
+    private static final double[] FIELD_WEIGHTS = {3.0, 2.0, 1.5, 1.0};
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // A term that only matches as a prefix of a vocabulary term scores a little lower than an exact hit
+    private static final double PREFIX_MATCH_FACTOR = 0.8;
+
+    // Popularity multipliers blended into the text score
+    private static final double SOLD_BOOST = 0.05;
+    private static final double RATING_BOOST = 0.1;
+    private static final double REVIEW_BOOST = 0.03;
+
+    private final ProductRepository productRepository;
+
+    // Inverted index: token -> ids of active products containing it (sorted for prefix lookups)
+    private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+
+    // Forward index: product id -> per-field term frequencies, lengths and popularity.
+    // Used for scoring and so updates and deletes can unlink old postings.
+    private final Map<Long, SearchDocument> documents = new ConcurrentHashMap<>();
+
+    // Sum of field lengths over all documents, for BM25 length normalization
+    private final AtomicLongArray fieldLengthTotals = new AtomicLongArray(FIELD_WEIGHTS.length);
+
+    // Padded bigram index over the vocabulary, split by term length, used to find candidate terms for fuzzy matching
+    private final Map<Integer, Map<String, Set<String>>> bigramsByLength = new ConcurrentHashMap<>();
+
+    // Vocabulary by term length, for fuzzy matching of terms too short for the bigram filter
+    private final Map<Integer, Set<String>> termsByLength = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    private static class SearchDocument {
+        private final Map<String, int[]> termFrequencies = new HashMap<>();
+        private final int[] fieldLengths = new int[FIELD_WEIGHTS.length];
+        private volatile double popularity;
+
+        private void addField(int field, String text) {
+            for (String token : tokenize(text)) {
+                termFrequencies.computeIfAbsent(token, t -> new int[FIELD_WEIGHTS.length])[field]++;
+                fieldLengths[field]++;
+            }
+        }
+    }
+
+    public ProductSearchService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        // Searches fall back to the database while the index is being rebuilt. Holding the same monitor
+        // as index and remove keeps concurrent updates from interleaving with the clear and reload.
+        ready = false;
+        postings.clear();
+        documents.clear();
+        bigramsByLength.clear();
+        termsByLength.clear();
+        for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+            fieldLengthTotals.set(field, 0);
+        }
+        for (Product product : productRepository.findAll()) {
+            index(product);
+        }
+        ready = true;
+        System.out.println("Product search index built with " + documents.size() + " products");
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized void index(Product product) {
+        remove(product.getId());
+        if (!product.isActive()) {
+            return;
+        }
+
+        SearchDocument document = new SearchDocument();
+        document.addField(FIELD_NAME, product.getName());
+        document.addField(FIELD_BRAND, product.getBrand());
+        document.addField(FIELD_CATEGORY, product.getCategory());
+        document.addField(FIELD_DESCRIPTION, product.getDescription());
+        document.popularity = popularity(product);
+
+        for (String token : document.termFrequencies.keySet()) {
+            postings.computeIfAbsent(token, t -> {
+                addBigrams(t);
+                return new ConcurrentSkipListSet<>();
+            }).add(product.getId());
+        }
+        for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+            fieldLengthTotals.addAndGet(field, document.fieldLengths[field]);
+        }
+        documents.put(product.getId(), document);
+    }
+
+    // Sales, rating and review changes only move the popularity boost
+    public void updatePopularity(Product product) {
+        SearchDocument document = documents.get(product.getId());
+        if (document != null) {
+            document.popularity = popularity(product);
+        }
+    }
+
+    public synchronized void remove(Long productId) {
+        SearchDocument document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+            fieldLengthTotals.addAndGet(field, -document.fieldLengths[field]);
+        }
+        for (String token : document.termFrequencies.keySet()) {
+            Set<Long> ids = postings.get(token);
+            if (ids != null) {
+                ids.remove(productId);
+                if (ids.isEmpty()) {
+                    postings.remove(token);
+                    removeBigrams(token);
+                }
+            }
+        }
+    }
+
+    // Ranked search: products matching every query term (each term treated as a prefix), best first.
+    // Only the top `limit` are kept in a bounded heap, so the full match set is never sorted.
+    public List<Long> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        List<Long> candidates = matchAll(terms);
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        // Resolve each term's vocabulary expansions and idf once, not per candidate
+        List<Map<String, Double>> expansions = new ArrayList<>();
+        for (String term : terms) {
+            Map<String, Double> weighted = new HashMap<>();
+            for (Map.Entry<String, Set<Long>> entry : prefixRange(term).entrySet()) {
+                double factor = entry.getKey().equals(term) ? 1.0 : PREFIX_MATCH_FACTOR;
+                weighted.put(entry.getKey(), factor * idf(entry.getValue().size()));
+            }
+            expansions.add(weighted);
+        }
+        double[] averageLengths = averageFieldLengths();
+
+        PriorityQueue<ScoredId> heap = new PriorityQueue<>(Comparator.comparingDouble((ScoredId scored) -> scored.score)
+                .thenComparing((ScoredId scored) -> scored.id, Comparator.reverseOrder()));
+        for (Long id : candidates) {
+            SearchDocument document = documents.get(id);
+            if (document == null) {
+                continue;
+            }
+            double score = score(document, expansions, averageLengths) * (1 + document.popularity);
+            heap.offer(new ScoredId(id, score));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        Long[] ranked = new Long[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = heap.poll().id;
+        }
+        return Arrays.asList(ranked);
+    }
+
+    // Unranked ids of every product matching all query terms, ascending by id
+    private List<Long> matchAll(List<String> terms) {
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Resolve the most selective term first so the intersection stays small
+        List<Set<Long>> matches = new ArrayList<>();
+        for (String term : terms) {
+            Set<Long> ids = matchPrefix(term);
+            if (ids.isEmpty()) {
+                return Collections.emptyList();
+            }
+            matches.add(ids);
+        }
+        matches.sort(Comparator.comparingInt(Set::size));
+
+        List<Long> result = new ArrayList<>();
+        for (Long id : matches.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < matches.size() && inAll; i++) {
+                inAll = matches.get(i).contains(id);
+            }
+            if (inAll) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    // Typo-tolerant search: each query term matches vocabulary terms within a small edit distance.
+    // Products matching every term are ranked by their total edit distance, then by id.
+    public List<Long> fuzzySearch(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Integer> distances = null;
+        for (String term : terms) {
+            Map<Long, Integer> termDistances = new HashMap<>();
+            for (Map.Entry<String, Integer> match : fuzzyTerms(term).entrySet()) {
+                Set<Long> ids = postings.get(match.getKey());
+                if (ids == null) {
+                    continue;
+                }
+                for (Long id : ids) {
+                    termDistances.merge(id, match.getValue(), Math::min);
+                }
+            }
+
+            if (distances == null) {
+                distances = termDistances;
+            } else {
+                Map<Long, Integer> combined = new HashMap<>();
+                for (Map.Entry<Long, Integer> entry : distances.entrySet()) {
+                    Integer distance = termDistances.get(entry.getKey());
+                    if (distance != null) {
+                        combined.put(entry.getKey(), entry.getValue() + distance);
+                    }
+                }
+                distances = combined;
+            }
+            if (distances.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(distances.entrySet());
+        ranked.sort(Map.Entry.<Long, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+        List<Long> result = new ArrayList<>();
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            result.add(ranked.get(i).getKey());
+        }
+        return result;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    private static class ScoredId {
+        private final Long id;
+        private final double score;
+
+        public ScoredId(Long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    // BM25F: field frequencies are weighted and length-normalized per field, then saturated once per term.
+    // A term expanding to several vocabulary terms contributes its best match only.
+    private static double score(SearchDocument document, List<Map<String, Double>> expansions, double[] averageLengths) {
+        double score = 0;
+        for (Map<String, Double> expansion : expansions) {
+            double best = 0;
+            for (Map.Entry<String, Double> term : expansion.entrySet()) {
+                int[] frequencies = document.termFrequencies.get(term.getKey());
+                if (frequencies == null) {
+                    continue;
+                }
+                double weightedFrequency = 0;
+                for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+                    if (frequencies[field] == 0) {
+                        continue;
+                    }
+                    double norm = 1 - B + B * document.fieldLengths[field] / averageLengths[field];
+                    weightedFrequency += FIELD_WEIGHTS[field] * frequencies[field] / norm;
+                }
+                best = Math.max(best, term.getValue() * weightedFrequency / (K1 + weightedFrequency));
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private double idf(int documentFrequency) {
+        int documentCount = documents.size();
+        return Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private double[] averageFieldLengths() {
+        int documentCount = Math.max(1, documents.size());
+        double[] averages = new double[FIELD_WEIGHTS.length];
+        for (int field = 0; field < averages.length; field++) {
+            averages[field] = Math.max(1.0, (double) fieldLengthTotals.get(field) / documentCount);
+        }
+        return averages;
+    }
+
+    private static double popularity(Product product) {
+        int soldCount = product.getSoldCount() != null ? product.getSoldCount() : 0;
+        int reviewCount = product.getReviewCount() != null ? product.getReviewCount() : 0;
+        double rating = product.getRating() != null ? product.getRating().doubleValue() : 0.0;
+        return SOLD_BOOST * Math.log1p(soldCount) + RATING_BOOST * rating / 5 + REVIEW_BOOST * Math.log1p(reviewCount);
+    }
+
+    private NavigableMap<String, Set<Long>> prefixRange(String term) {
+        return postings.subMap(term, true, term + Character.MAX_VALUE, false);
+    }
+
+    private Set<Long> matchPrefix(String term) {
+        Iterator<Set<Long>> ranges = prefixRange(term).values().iterator();
+        if (!ranges.hasNext()) {
+            return Collections.emptySet();
+        }
+        Set<Long> first = ranges.next();
+        if (!ranges.hasNext()) {
+            return first;
+        }
+        Set<Long> ids = new TreeSet<>(first);
+        while (ranges.hasNext()) {
+            ids.addAll(ranges.next());
+        }
+        return ids;
+    }
+
+    // Vocabulary terms within the allowed edit distance of the query term, with their distance.
+    // Exact prefixes count as distance 0 so fuzzy mode never loses what the normal search finds.
+    private Map<String, Integer> fuzzyTerms(String term) {
+        Map<String, Integer> matches = new HashMap<>();
+        for (String prefixed : prefixRange(term).keySet()) {
+            matches.put(prefixed, 0);
+        }
+
+        int maxEdits = maxEdits(term);
+        if (maxEdits == 0) {
+            return matches;
+        }
+
+        for (String candidate : fuzzyCandidates(term, maxEdits)) {
+            if (matches.containsKey(candidate) || Math.abs(candidate.length() - term.length()) > maxEdits) {
+                continue;
+            }
+            int distance = boundedEditDistance(term, candidate, maxEdits);
+            if (distance <= maxEdits) {
+                matches.put(candidate, distance);
+            }
+        }
+        return matches;
+    }
+
+    // Terms that may be within maxEdits of the query term, by a count filter on padded bigrams. One edit
+    // removes at most two of the query's distinct bigrams, three for a transposition, so a match of a close
+    // enough length shares at least grams - 3 * maxEdits of them. Only terms made of repeated bigrams
+    // (such as "aaa") leave that bound below one; those fall back to every term of a close enough length.
+    private Collection<String> fuzzyCandidates(String term, int maxEdits) {
+        Set<String> grams = bigramsOf(term);
+        int minShared = grams.size() - 3 * maxEdits;
+        List<String> candidates = new ArrayList<>();
+        for (int length = term.length() - maxEdits; length <= term.length() + maxEdits; length++) {
+            if (minShared < 1) {
+                Set<String> terms = termsByLength.get(length);
+                if (terms != null) {
+                    candidates.addAll(terms);
+                }
+                continue;
+            }
+
+            Map<String, Set<String>> index = bigramsByLength.get(length);
+            if (index == null) {
+                continue;
+            }
+            Map<String, Integer> shared = new HashMap<>();
+            for (String gram : grams) {
+                Set<String> terms = index.get(gram);
+                if (terms != null) {
+                    for (String candidate : terms) {
+                        shared.merge(candidate, 1, Integer::sum);
+                    }
+                }
+            }
+            for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+                if (entry.getValue() >= minShared) {
+                    candidates.add(entry.getKey());
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static int maxEdits(String term) {
+        if (term.length() < 3) {
+            return 0;
+        }
+        return term.length() < 6 ? 1 : 2;
+    }
+
+    // Optimal string alignment distance; gives up with maxEdits + 1 once every cell in a row exceeds the bound
+    static int boundedEditDistance(String a, String b, int maxEdits) {
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private void addBigrams(String term) {
+        Map<String, Set<String>> index = bigramsByLength.computeIfAbsent(term.length(), l -> new ConcurrentHashMap<>());
+        for (String gram : bigramsOf(term)) {
+            index.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(term);
+        }
+        termsByLength.computeIfAbsent(term.length(), l -> ConcurrentHashMap.newKeySet()).add(term);
+    }
+
+    private void removeBigrams(String term) {
+        Map<String, Set<String>> index = bigramsByLength.get(term.length());
+        if (index != null) {
+            for (String gram : bigramsOf(term)) {
+                Set<String> terms = index.get(gram);
+                if (terms != null) {
+                    terms.remove(term);
+                    if (terms.isEmpty()) {
+                        index.remove(gram);
+                    }
+                }
+            }
+        }
+        Set<String> sameLength = termsByLength.get(term.length());
+        if (sameLength != null) {
+            sameLength.remove(term);
+        }
+    }
+
+    // Distinct bigrams, padded so that the first and last characters also form full bigrams
+    private static Set<String> bigramsOf(String term) {
+        String padded = "^" + term + "$";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 2 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+}
@@ -1,24 +1,82 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.HomeCatalog;
+import com.ecommerce.dto.ProductBatchItem;
+import com.ecommerce.dto.ProductChangesResponse;
+import com.ecommerce.dto.ProductCursorPage;
+import com.ecommerce.dto.ProductFacetsResponse;
+import com.ecommerce.dto.ProductSummary;
+import com.ecommerce.dto.SuggestionResponse;
 import com.ecommerce.entity.Product;
+import com.ecommerce.repository.FlashSaleRepository;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.ProductSpecifications;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ProductService {
 
+    private static final int RELATED_PRODUCTS_LIMIT = 4;
+    private static final int MAX_BATCH_IDS = 500;
+    private static final Set<String> SCROLL_SORT_FIELDS = Set.of("name", "price", "rating", "createdAt", "soldCount");
+
     private final ProductRepository productRepository;
+    private final ProductSearchService productSearchService;
+    private final ProductFacetService productFacetService;
+    private final ProductSuggestService productSuggestService;
+    private final ProductCacheService productCacheService;
+    private final HomeCatalogService homeCatalogService;
+    private final ProductRecommendationService productRecommendationService;
+    private final CatalogVersionService catalogVersionService;
+    private final ColumnarCatalogService columnarCatalogService;
+    private final ProductListingCacheService productListingCacheService;
+    private final ProductChangeService productChangeService;
+    private final InventoryService inventoryService;
+    private final FlashSaleRepository flashSaleRepository;
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, ProductSearchService productSearchService,
+                          ProductFacetService productFacetService, ProductSuggestService productSuggestService,
+                          ProductCacheService productCacheService, HomeCatalogService homeCatalogService,
+                          ProductRecommendationService productRecommendationService,
+                          CatalogVersionService catalogVersionService,
+                          ColumnarCatalogService columnarCatalogService,
+                          ProductListingCacheService productListingCacheService,
+                          ProductChangeService productChangeService, InventoryService inventoryService,
+                          FlashSaleRepository flashSaleRepository) {
         this.productRepository = productRepository;
+        this.flashSaleRepository = flashSaleRepository;
+        this.inventoryService = inventoryService;
+        this.productChangeService = productChangeService;
+        this.productListingCacheService = productListingCacheService;
+        this.catalogVersionService = catalogVersionService;
+        this.columnarCatalogService = columnarCatalogService;
+        this.productCacheService = productCacheService;
+        this.homeCatalogService = homeCatalogService;
+        this.productRecommendationService = productRecommendationService;
+        this.productSearchService = productSearchService;
+        this.productFacetService = productFacetService;
+        this.productSuggestService = productSuggestService;
     }
 
     public Page<Product> getAllProducts(String search, String category, String brand, 
@@ -32,36 +90,183 @@ public class ProductService {
         
         BigDecimal min = BigDecimal.valueOf(minPrice);
         BigDecimal max = BigDecimal.valueOf(maxPrice);
+
+        // Served from memory when the columnar snapshot is enabled and can handle the sort field
+        Optional<Page<Product>> inMemory = columnarCatalogService.query(search, category, brand, min, max,
+                sortBy, sortDir.equalsIgnoreCase("desc"), sortedPageable);
+        if (inMemory.isPresent()) {
+            return inMemory.get();
+        }
+
+        // Repeated filter tuples reuse the last result until a product write moves the catalog version
+        return productListingCacheService.getListing(search, category, brand, min, max, sortBy, sortDir,
+                sortedPageable, () -> productRepository.findProductsWithFilters(search, category, brand, min, max, sortedPageable));
+    }
+
+    public Page<ProductSummary> getProductSummaries(String search, String category, String brand,
+                                                    Double minPrice, Double maxPrice, String sortBy,
+                                                    String sortDir, Pageable pageable) {
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+                   Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        
+        Pageable sortedPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+        
+        return productRepository.findSummariesWithFilters(search, category, brand,
+                BigDecimal.valueOf(minPrice), BigDecimal.valueOf(maxPrice), sortedPageable);
+    }
+
+    // Featured and best-seller summaries come from the home snapshot, so they cost no query at all
+    public List<ProductSummary> getFeaturedSummaries() {
+        return toSummaries(homeCatalogService.getSnapshot().getFeatured());
+    }
+
+    public List<ProductSummary> getBestSellerSummaries() {
+        return toSummaries(homeCatalogService.getSnapshot().getBestSellers());
+    }
+
+    public static Set<String> parseSummaryFields(String fields) {
+        Set<String> selected = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!ProductSummary.FIELDS.contains(trimmed)) {
+                throw new RuntimeException("Unknown product field: " + trimmed);
+            }
+            selected.add(trimmed);
+        }
+        return selected;
+    }
+
+    public ProductCursorPage scrollProducts(String search, String category, String brand,
+                                            Double minPrice, Double maxPrice, String sortBy,
+                                            String sortDir, String cursor, int size) {
+        if (!SCROLL_SORT_FIELDS.contains(sortBy)) {
+            throw new RuntimeException("Unsupported sort field for cursor pagination: " + sortBy);
+        }
+        String direction = sortDir.equalsIgnoreCase("desc") ? "desc" : "asc";
+        boolean descending = direction.equals("desc");
+        int pageSize = Math.max(1, Math.min(size, 100));
+        
+        Specification<Product> spec = ProductSpecifications.withFilters(search, category, brand,
+                BigDecimal.valueOf(minPrice), BigDecimal.valueOf(maxPrice));
+        long skipped = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            ProductCursor position = ProductCursor.decode(cursor);
+            if (!position.getSortBy().equals(sortBy) || !position.getSortDir().equals(direction)) {
+                throw new RuntimeException("Cursor does not match the requested sort order");
+            }
+            spec = spec.and(seekAfter(position, descending));
+            skipped = position.getSkipped();
+        }
         
-        return productRepository.findProductsWithFilters(search, category, brand, min, max, sortedPageable);
+        // Sort on (sortKey, id) so the seek predicate has a unique tie-breaker
+        Sort.Direction sortDirection = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(sortDirection, sortBy).and(Sort.by(sortDirection, "id"));
+        
+        // Fetch one extra row to learn whether another page exists, without a count query
+        List<Product> rows = productRepository.findBy(spec, query -> query.sortBy(sort).limit(pageSize + 1).all());
+        boolean hasNext = rows.size() > pageSize;
+        List<Product> content = hasNext ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        
+        String nextCursor = null;
+        if (hasNext) {
+            Product last = content.get(content.size() - 1);
+            nextCursor = new ProductCursor(sortBy, direction, last.getId(), skipped + content.size(),
+                    sortValue(last, sortBy)).encode();
+        }
+        return new ProductCursorPage(content, nextCursor, hasNext, skipped);
     }
 
     public Product getProductById(Long id) {
-        return productRepository.findById(id)
+        return productCacheService.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
 
+    public String getCatalogEtag() {
+        return catalogVersionService.getEtag();
+    }
+
+    public long getCatalogLastModified() {
+        return catalogVersionService.getChangeStamp();
+    }
+
+    public List<ProductBatchItem> getProductsByIds(List<Long> ids) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new RuntimeException("At most " + MAX_BATCH_IDS + " product ids can be requested at once");
+        }
+        Map<Long, Product> found = productCacheService.findAllById(new LinkedHashSet<>(ids));
+        
+        // Request order is preserved; ids that do not exist come back flagged as not found
+        List<ProductBatchItem> items = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            items.add(new ProductBatchItem(id, found.get(id)));
+        }
+        return items;
+    }
+
+    public ProductChangesResponse getProductChanges(long since, String cursor, int limit) {
+        return productChangeService.getChangesSince(since, cursor, limit);
+    }
+
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = productCacheService.getStats();
+        stats.put("listings", productListingCacheService.getStats());
+        return stats;
+    }
+
     public List<Product> searchProducts(String query) {
-        Page<Product> products = productRepository.searchProducts(query, PageRequest.of(0, 20));
-        return products.getContent();
+        return searchProducts(query, false);
+    }
+
+    public List<Product> searchProducts(String query, boolean fuzzy) {
+        // Fall back to the LIKE scan until the in-memory index has been built
+        if (!productSearchService.isReady()) {
+            Page<Product> products = productRepository.searchProducts(query, PageRequest.of(0, 20));
+            return products.getContent();
+        }
+        
+        List<Long> ids = fuzzy ? productSearchService.fuzzySearch(query, 20) : productSearchService.search(query, 20);
+        return findAllByIdInOrder(ids);
+    }
+
+    public ProductFacetsResponse getProductFacets(String search, String category, String brand,
+                                                  Double minPrice, Double maxPrice) {
+        return productFacetService.getFacets(search, category, brand, minPrice, maxPrice);
+    }
+
+    public List<SuggestionResponse> suggest(String query, int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, ProductSuggestService.MAX_SUGGESTIONS));
+        return productSuggestService.suggest(query, boundedLimit);
+    }
+
+    public HomeCatalog getHomeCatalog() {
+        return homeCatalogService.getSnapshot();
     }
 
     public List<String> getAllCategories() {
-        return productRepository.findAllCategories();
+        return homeCatalogService.getSnapshot().getCategories();
     }
 
     public List<String> getAllBrands() {
-        return productRepository.findAllBrands();
+        return homeCatalogService.getSnapshot().getBrands();
     }
 
     public Product createProduct(Product product) {
         product.setCreatedAt(LocalDateTime.now());
         product.setUpdatedAt(LocalDateTime.now());
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        onProductChanged(savedProduct);
+        return savedProduct;
     }
 
+    @Transactional
     public Product updateProduct(Long id, Product productDetails) {
-        Product product = getProductById(id);
+        Product product = lockProduct(id);
+        if (!Objects.equals(product.getStockQuantity(), productDetails.getStockQuantity())) {
+            requireNotOnFlashSale(id);
+        }
         
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
@@ -73,31 +278,42 @@ public class ProductService {
         product.setFeatured(productDetails.isFeatured());
         product.setUpdatedAt(LocalDateTime.now());
         
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        runAfterCommit(() -> onProductChanged(savedProduct));
+        return savedProduct;
     }
 
+    // The tombstone commits or rolls back together with the delete, and the in-memory structures only drop
+    // the product once both have committed, so a delete refused at commit leaves it listed
+    @Transactional
     public void deleteProduct(Long id) {
-        Product product = getProductById(id);
+        Product product = loadProduct(id);
         productRepository.delete(product);
+        productChangeService.recordDeletion(id);
+        runAfterCommit(() -> onProductRemoved(id));
     }
 
+    @Transactional
     public Product updateStock(Long id, Integer quantity) {
-        Product product = getProductById(id);
+        Product product = lockProduct(id);
+        requireNotOnFlashSale(id);
         product.setStockQuantity(quantity);
         product.setUpdatedAt(LocalDateTime.now());
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        runAfterCommit(() -> onStatsChanged(savedProduct));
+        return savedProduct;
     }
 
     public List<Product> getFeaturedProducts() {
-        return productRepository.findByFeaturedTrueAndActiveTrueOrderByCreatedAtDesc();
+        return homeCatalogService.getSnapshot().getFeatured();
     }
 
     public List<Product> getBestSellingProducts() {
-        return productRepository.findTop10ByActiveTrueOrderBySoldCountDesc();
+        return homeCatalogService.getSnapshot().getBestSellers();
     }
 
     public List<Product> getLatestProducts() {
-        return productRepository.findTop10ByActiveTrueOrderByCreatedAtDesc();
+        return homeCatalogService.getSnapshot().getLatest();
     }
 
     public List<Product> getProductsByCategory(String category) {
@@ -108,15 +324,49 @@ public class ProductService {
         return productRepository.findByBrandAndActiveTrueOrderByCreatedAtDesc(brand);
     }
 
+    public List<Product> getRelatedProducts(Long productId) {
+        return getRelatedProducts(productId, getProductById(productId).getCategory());
+    }
+
     public List<Product> getRelatedProducts(Long productId, String category) {
-        return productRepository.findByCategoryAndIdNotAndActiveTrueOrderByRatingDesc(category, productId, PageRequest.of(0, 4));
+        // Products bought together come first, resolved through the product cache
+        List<Product> related = new ArrayList<>();
+        for (Long neighborId : productRecommendationService.getNeighbors(productId)) {
+            productCacheService.findById(neighborId)
+                    .filter(Product::isActive)
+                    .ifPresent(related::add);
+            if (related.size() >= RELATED_PRODUCTS_LIMIT) {
+                return related;
+            }
+        }
+        
+        // Top-rated products in the same category cover items without purchase history
+        List<Product> sameCategory = productRepository.findByCategoryAndIdNotAndActiveTrueOrderByRatingDesc(
+                category, productId, PageRequest.of(0, RELATED_PRODUCTS_LIMIT * 2));
+        for (Product product : sameCategory) {
+            if (related.size() >= RELATED_PRODUCTS_LIMIT) {
+                break;
+            }
+            if (related.stream().noneMatch(p -> p.getId().equals(product.getId()))) {
+                related.add(product);
+            }
+        }
+        return related;
     }
 
     public void updateProductRating(Long productId) {
-        Product product = getProductById(productId);
+        Product product = loadProduct(productId);
         Double averageRating = productRepository.calculateAverageRating(productId);
         product.setRating(averageRating != null ? BigDecimal.valueOf(averageRating) : BigDecimal.ZERO);
         productRepository.save(product);
+        onStatsChanged(product);
+    }
+
+    public void updateReviewCount(Long productId, int reviewCount) {
+        Product product = loadProduct(productId);
+        product.setReviewCount(reviewCount);
+        productRepository.save(product);
+        onStatsChanged(product);
     }
 
     public boolean isProductInStock(Long productId, Integer quantity) {
@@ -125,13 +375,153 @@ public class ProductService {
     }
 
     public void reduceStock(Long productId, Integer quantity) {
-        Product product = getProductById(productId);
-        if (product.getStockQuantity() < quantity) {
-            throw new RuntimeException("Insufficient stock for product: " + product.getName());
+        if (!reduceStock(Map.of(productId, quantity)).isEmpty()) {
+            throw new RuntimeException("Product is on flash sale");
         }
-        product.setStockQuantity(product.getStockQuantity() - quantity);
-        product.setSoldCount(product.getSoldCount() + quantity);
-        product.setUpdatedAt(LocalDateTime.now());
-        productRepository.save(product);
+    }
+
+    // Checks and decrements every line in one batched round-trip; the caller's transaction rolls back
+    // all lines if any of them is short. Returns the lines left for the flash-sale shards.
+    public Map<Long, Integer> reduceStock(Map<Long, Integer> quantities) {
+        Map<Long, Integer> onFlashSale = inventoryService.decrementStock(quantities);
+        refreshStockStatsAfterCommit(quantities.keySet());
+        return onFlashSale;
+    }
+
+    public void refreshStockStatsAfterCommit(Collection<Long> productIds) {
+        Set<Long> ids = new HashSet<>(productIds);
+        runAfterCommit(() -> refreshStockStats(ids));
+    }
+
+    // For stock written by bulk SQL: reloads the products and refreshes the in-memory catalog structures
+    public void refreshStockStats(Collection<Long> productIds) {
+        for (Product product : inventoryService.loadCurrent(productIds)) {
+            onStatsChanged(product);
+        }
+    }
+
+    private static Specification<Product> seekAfter(ProductCursor cursor, boolean descending) {
+        String value = cursor.getLastValue();
+        Long id = cursor.getLastId();
+        try {
+            return switch (cursor.getSortBy()) {
+                case "name" -> ProductSpecifications.after("name", descending, value, id);
+                case "price" -> ProductSpecifications.after("price", descending, new BigDecimal(value), id);
+                case "rating" -> ProductSpecifications.after("rating", descending, new BigDecimal(value), id);
+                case "createdAt" -> ProductSpecifications.after("createdAt", descending, LocalDateTime.parse(value), id);
+                case "soldCount" -> ProductSpecifications.after("soldCount", descending, Integer.valueOf(value), id);
+                default -> throw new RuntimeException("Unsupported sort field for cursor pagination: " + cursor.getSortBy());
+            };
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new RuntimeException("Invalid cursor value: " + value);
+        }
+    }
+
+    private static String sortValue(Product product, String sortBy) {
+        return switch (sortBy) {
+            case "name" -> product.getName();
+            case "price" -> product.getPrice().toPlainString();
+            case "rating" -> (product.getRating() != null ? product.getRating() : BigDecimal.ZERO).toPlainString();
+            case "createdAt" -> product.getCreatedAt().toString();
+            case "soldCount" -> String.valueOf(product.getSoldCount() != null ? product.getSoldCount() : 0);
+            default -> throw new RuntimeException("Unsupported sort field for cursor pagination: " + sortBy);
+        };
+    }
+
+    private static List<ProductSummary> toSummaries(List<Product> products) {
+        List<ProductSummary> summaries = new ArrayList<>(products.size());
+        for (Product product : products) {
+            summaries.add(ProductSummary.from(product));
+        }
+        return summaries;
+    }
+
+    // Bulk writes bypass the per-product hooks, so every in-memory structure is rebuilt afterwards
+    public void refreshCatalogIndexes() {
+        catalogVersionService.bump();
+        productCacheService.clear();
+        productListingCacheService.clear();
+        productSearchService.rebuild();
+        productFacetService.rebuild();
+        productSuggestService.rebuild();
+        homeCatalogService.markStale();
+        columnarCatalogService.markStale();
+    }
+
+    // Writes bypass the cache so they never modify an instance other requests may be reading
+    private Product loadProduct(Long id) {
+        return productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+    }
+
+    private Product lockProduct(Long id) {
+        return productRepository.lockById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+    }
+
+    // A flash-sale product sells from its shards, and the rollup would overwrite a stock edit on the product row
+    private void requireNotOnFlashSale(Long productId) {
+        if (flashSaleRepository.existsById(productId)) {
+            throw new RuntimeException("Product is on flash sale; end the sale before changing its stock");
+        }
+    }
+
+    private List<Product> findAllByIdInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Product> byId = productCacheService.findAllById(ids);
+        List<Product> products = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Keep the in-memory catalog structures in step with product writes
+    private void onProductChanged(Product product) {
+        catalogVersionService.bump();
+        homeCatalogService.markStale();
+        columnarCatalogService.markStale();
+        productCacheService.invalidate(product.getId());
+        productSearchService.index(product);
+        productFacetService.index(product);
+        productSuggestService.index(product);
+    }
+
+    // Stock, sales and rating writes leave the searchable text untouched, so only popularity is refreshed
+    private void onStatsChanged(Product product) {
+        catalogVersionService.bump();
+        homeCatalogService.markStale();
+        productCacheService.invalidate(product.getId());
+        productSearchService.updatePopularity(product);
+        productFacetService.index(product);
+        productSuggestService.index(product);
+    }
+
+    private void onProductRemoved(Long productId) {
+        catalogVersionService.bump();
+        homeCatalogService.markStale();
+        columnarCatalogService.markStale();
+        productCacheService.invalidate(productId);
+        productSearchService.remove(productId);
+        productFacetService.remove(productId);
+        productSuggestService.remove(productId);
     }
 }
@@ -0,0 +1,273 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.SuggestionResponse;
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class ProductSuggestService {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    // Phrases are indexed under every word start, but only this many characters deep
+    private static final int MAX_DEPTH = 24;
+
+    private final ProductRepository productRepository;
+
+    private final TrieNode root = new TrieNode();
+
+    // Current suggestion per key ("product:12", "brand:apple", "category:electronics")
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+
+    // Brand and category scores are the sum of their products' scores
+    private final Map<String, Double> aggregateScores = new HashMap<>();
+    private final Map<String, Integer> aggregateCounts = new HashMap<>();
+
+    // What each product last contributed, so an update can be undone before reapplying
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+
+    private static class TrieNode {
+        private final Map<Character, TrieNode> children = new ConcurrentHashMap<>();
+        private final Set<String> terminalKeys = new HashSet<>();
+        // Best suggestions for this prefix, replaced wholesale so readers never need a lock
+        private volatile List<Suggestion> top = Collections.emptyList();
+    }
+
+    private static class Suggestion {
+        private final String key;
+        private final String text;
+        private final String normalized;
+        private final String type;
+        private final Long productId;
+        private final double score;
+
+        public Suggestion(String key, String text, String normalized, String type, Long productId, double score) {
+            this.key = key;
+            this.text = text;
+            this.normalized = normalized;
+            this.type = type;
+            this.productId = productId;
+            this.score = score;
+        }
+    }
+
+    private static class Contribution {
+        private final String brand;
+        private final String category;
+        private final double score;
+
+        public Contribution(String brand, String category, double score) {
+            this.brand = brand;
+            this.category = category;
+            this.score = score;
+        }
+    }
+
+    public ProductSuggestService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        for (Product product : productRepository.findAll()) {
+            index(product);
+        }
+    }
+
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        TrieNode node = root;
+        int depth = Math.min(normalized.length(), MAX_DEPTH);
+        for (int i = 0; i < depth && node != null; i++) {
+            node = node.children.get(normalized.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+
+        List<SuggestionResponse> result = new ArrayList<>();
+        for (Suggestion suggestion : node.top) {
+            // Prefixes deeper than the trie are checked against the phrase itself
+            if (normalized.length() > MAX_DEPTH && !matchesWordPrefix(suggestion.normalized, normalized)) {
+                continue;
+            }
+            result.add(new SuggestionResponse(suggestion.text, suggestion.type, suggestion.productId));
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    public synchronized void index(Product product) {
+        remove(product.getId());
+        if (!product.isActive()) {
+            return;
+        }
+
+        double score = score(product);
+        Contribution contribution = new Contribution(product.getBrand(), product.getCategory(), score);
+        contributions.put(product.getId(), contribution);
+
+        String name = product.getName();
+        if (name != null && !normalize(name).isEmpty()) {
+            put(new Suggestion("product:" + product.getId(), name, normalize(name), "product", product.getId(), score));
+        }
+        adjustAggregate("brand", product.getBrand(), score, 1);
+        adjustAggregate("category", product.getCategory(), score, 1);
+    }
+
+    public synchronized void remove(Long productId) {
+        Contribution contribution = contributions.remove(productId);
+        if (contribution == null) {
+            return;
+        }
+        delete("product:" + productId);
+        adjustAggregate("brand", contribution.brand, -contribution.score, -1);
+        adjustAggregate("category", contribution.category, -contribution.score, -1);
+    }
+
+    private void adjustAggregate(String type, String text, double scoreDelta, int countDelta) {
+        if (text == null || normalize(text).isEmpty()) {
+            return;
+        }
+        String normalized = normalize(text);
+        String key = type + ":" + normalized;
+
+        int count = aggregateCounts.getOrDefault(key, 0) + countDelta;
+        if (count <= 0) {
+            aggregateCounts.remove(key);
+            aggregateScores.remove(key);
+            delete(key);
+            return;
+        }
+        double score = aggregateScores.getOrDefault(key, 0.0) + scoreDelta;
+        aggregateCounts.put(key, count);
+        aggregateScores.put(key, score);
+
+        // Keep the first spelling seen for display
+        Suggestion existing = suggestions.get(key);
+        String display = existing != null ? existing.text : text;
+        put(new Suggestion(key, display, normalized, type, null, score));
+    }
+
+    private void put(Suggestion suggestion) {
+        suggestions.put(suggestion.key, suggestion);
+        refreshPaths(suggestion.key, suggestion.normalized);
+    }
+
+    private void delete(String key) {
+        Suggestion suggestion = suggestions.remove(key);
+        if (suggestion != null) {
+            refreshPaths(key, suggestion.normalized);
+        }
+    }
+
+    // Re-rank every node on the paths of a phrase, from the deepest node up to the root
+    private void refreshPaths(String key, String normalized) {
+        boolean present = suggestions.containsKey(key);
+        for (int start = 0; start < normalized.length(); start++) {
+            if (start > 0 && normalized.charAt(start - 1) != ' ') {
+                continue;
+            }
+            int end = Math.min(normalized.length(), start + MAX_DEPTH);
+
+            List<TrieNode> path = new ArrayList<>();
+            path.add(root);
+            TrieNode node = root;
+            for (int i = start; i < end; i++) {
+                char c = normalized.charAt(i);
+                TrieNode child = node.children.get(c);
+                if (child == null) {
+                    if (!present) {
+                        break;
+                    }
+                    child = new TrieNode();
+                    node.children.put(c, child);
+                }
+                node = child;
+                path.add(node);
+            }
+            if (path.size() != end - start + 1) {
+                continue;
+            }
+
+            if (present) {
+                node.terminalKeys.add(key);
+            } else {
+                node.terminalKeys.remove(key);
+            }
+
+            for (int i = path.size() - 1; i >= 0; i--) {
+                TrieNode current = path.get(i);
+                recomputeTop(current);
+                if (i > 0 && current.top.isEmpty() && current.children.isEmpty()) {
+                    path.get(i - 1).children.remove(normalized.charAt(start + i - 1));
+                }
+            }
+        }
+    }
+
+    private void recomputeTop(TrieNode node) {
+        Map<String, Suggestion> candidates = new HashMap<>();
+        for (String key : node.terminalKeys) {
+            Suggestion suggestion = suggestions.get(key);
+            if (suggestion != null) {
+                candidates.put(key, suggestion);
+            }
+        }
+        for (TrieNode child : node.children.values()) {
+            for (Suggestion suggestion : child.top) {
+                candidates.put(suggestion.key, suggestions.get(suggestion.key));
+            }
+        }
+        candidates.values().removeIf(Objects::isNull);
+
+        List<Suggestion> ranked = new ArrayList<>(candidates.values());
+        ranked.sort((a, b) -> Double.compare(b.score, a.score));
+        if (ranked.size() > MAX_SUGGESTIONS) {
+            ranked = new ArrayList<>(ranked.subList(0, MAX_SUGGESTIONS));
+        }
+        node.top = Collections.unmodifiableList(ranked);
+    }
+
+    private static double score(Product product) {
+        int soldCount = product.getSoldCount() != null ? product.getSoldCount() : 0;
+        double rating = product.getRating() != null ? product.getRating().doubleValue() : 0.0;
+        return Math.log1p(soldCount) * 2 + rating;
+    }
+
+    private static boolean matchesWordPrefix(String text, String prefix) {
+        return text.startsWith(prefix) || text.contains(" " + prefix);
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                result.append(Character.toLowerCase(c));
+            } else if (result.length() > 0 && result.charAt(result.length() - 1) != ' ') {
+                result.append(' ');
+            }
+        }
+        int length = result.length();
+        if (length > 0 && result.charAt(length - 1) == ' ') {
+            result.setLength(length - 1);
+        }
+        return result.toString();
+    }
+}
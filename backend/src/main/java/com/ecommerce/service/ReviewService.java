@@ -126,11 +126,7 @@ public class ReviewService {
     }
 
     private void updateProductReviewCount(Long productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-        
         Long reviewCount = getReviewCount(productId);
-        product.setReviewCount(reviewCount.intValue());
-        productRepository.save(product);
+        productService.updateReviewCount(productId, reviewCount.intValue());
     }
 }
@@ -0,0 +1,105 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.Order;
+import com.ecommerce.entity.OrderItem;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Round-trips per order, measured as prepared statements. With pooled sequence ids and JDBC batching an order
+// costs one order insert plus one batched item insert whatever its line count; an occasional sequence fetch
+// for the next id block is the only extra statement.
+// Runs on its own in-memory H2 database in MySQL mode, so the MySQL driver and TEXT columns from the main
+// configuration need no server
+@DataJpaTest(properties = {
+        "spring.test.database.replace=none",
+        "spring.datasource.url=jdbc:h2:mem:order_batching;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrderInsertBatchingTest {
+
+    private static final int[] LINE_COUNTS = {1, 10, 50};
+
+    // Order insert, item batch and at most one sequence fetch
+    private static final long MAX_STATEMENTS_PER_ORDER = 3;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private List<Product> products;
+    private Statistics statistics;
+    private int orderCount;
+
+    @BeforeEach
+    void setUp() {
+        user = entityManager.persist(new User("batching@example.com", "secret", "Batch", "Test"));
+        products = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            products.add(entityManager.persist(new Product("Product " + i, "Test product", BigDecimal.TEN, 100)));
+        }
+        entityManager.flush();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Fetches the first id blocks of both sequences outside the measurements
+        placeOrder(50);
+    }
+
+    @Test
+    void statementsPerOrderDoNotGrowWithLineCount() {
+        Map<Integer, Long> statements = new LinkedHashMap<>();
+        for (int lines : LINE_COUNTS) {
+            statements.put(lines, placeOrder(lines));
+        }
+        System.out.println("Prepared statements per order by line count: " + statements);
+
+        for (Map.Entry<Integer, Long> measured : statements.entrySet()) {
+            assertThat(measured.getValue())
+                    .as("statements for an order of %d lines", measured.getKey())
+                    .isBetween(2L, MAX_STATEMENTS_PER_ORDER);
+        }
+    }
+
+    // Saves an order with the given number of lines and returns the statements its flush prepared
+    private long placeOrder(int lines) {
+        Order order = new Order("ORD-TEST-" + (++orderCount), user, BigDecimal.TEN.multiply(BigDecimal.valueOf(lines)));
+        LinkedHashSet<OrderItem> items = new LinkedHashSet<>();
+        for (int i = 0; i < lines; i++) {
+            items.add(new OrderItem(order, products.get(i), 1, BigDecimal.TEN));
+        }
+        order.setOrderItems(items);
+
+        statistics.clear();
+        orderRepository.save(order);
+        entityManager.flush();
+        return statistics.getPrepareStatementCount();
+    }
+}
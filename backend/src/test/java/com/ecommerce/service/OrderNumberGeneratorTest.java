@@ -0,0 +1,111 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Uniqueness and ordering checks that double as a throughput benchmark: each timed run prints ids per second
+class OrderNumberGeneratorTest {
+
+    private static final int IDS_PER_THREAD = 500_000;
+    private static final int THREADS = 8;
+
+    @Test
+    void singleThreadedIdsStrictlyIncrease() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, false);
+
+        long started = System.nanoTime();
+        long[] ids = new long[IDS_PER_THREAD];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = generator.nextId();
+        }
+        report("1 thread", ids.length, started);
+
+        for (int i = 1; i < ids.length; i++) {
+            assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+        }
+    }
+
+    @Test
+    void concurrentIdsAreUnique() throws Exception {
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, false);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+
+            long started = System.nanoTime();
+            start.countDown();
+            long[] all = new long[THREADS * IDS_PER_THREAD];
+            int offset = 0;
+            for (Future<long[]> result : results) {
+                long[] ids = result.get();
+                // Each thread sees its own ids in issue order
+                for (int i = 1; i < ids.length; i++) {
+                    assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                }
+                System.arraycopy(ids, 0, all, offset, ids.length);
+                offset += ids.length;
+            }
+            report(THREADS + " threads", all.length, started);
+
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertThat(all[i]).as("duplicate id").isNotEqualTo(all[i - 1]);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void orderNumbersSortInIdOrder() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, false);
+        String previous = generator.nextOrderNumber();
+        for (int i = 0; i < 10_000; i++) {
+            String next = generator.nextOrderNumber();
+            assertThat(next).hasSize(previous.length());
+            assertThat(next.compareTo(previous)).isPositive();
+            previous = next;
+        }
+    }
+
+    @Test
+    void idsCarryTheNodeId() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(1023, false);
+        assertThat((generator.nextId() >>> 12) & 1023).isEqualTo(1023);
+    }
+
+    @Test
+    void requiredNodeIdMustBeConfigured() {
+        assertThatThrownBy(() -> new OrderNumberGenerator(-1, true))
+                .hasMessageContaining("orders.node-id is required");
+        assertThatThrownBy(() -> new OrderNumberGenerator(1024, false))
+                .hasMessageContaining("between 0 and 1023");
+    }
+
+    private static void report(String label, int ids, long startedNanos) {
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        System.out.printf("OrderNumberGenerator, %s: %d ids in %.3f s (%.1f M ids/s)%n",
+                label, ids, seconds, ids / seconds / 1e6);
+    }
+}
@@ -89,12 +89,81 @@ CREATE TABLE IF NOT EXISTS reviews (
     UNIQUE(user_id, product_id)
 );
 
+-- Product Tombstones Table (deleted product ids for catalog delta sync)
+CREATE TABLE IF NOT EXISTS product_tombstones (
+    id BIGSERIAL PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL
+);
+
+-- Idempotency Keys Table (completed order submissions, so client retries return the same order)
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGSERIAL PRIMARY KEY,
+    user_email VARCHAR(255) NOT NULL,
+    idempotency_key VARCHAR(100) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    order_id BIGINT,
+    created_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_idempotency_keys_user_key UNIQUE (user_email, idempotency_key)
+);
+
+-- Create product_flash_sales and product_stock_shards tables (flash-sale stock split into counter shards)
+CREATE TABLE IF NOT EXISTS product_flash_sales (
+    product_id BIGINT PRIMARY KEY REFERENCES products(id) ON DELETE CASCADE,
+    shard_count INTEGER NOT NULL,
+    base_sold_count INTEGER NOT NULL,
+    started_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS product_stock_shards (
+    id BIGSERIAL PRIMARY KEY,
+    product_id BIGINT NOT NULL REFERENCES products(id) ON DELETE CASCADE,
+    shard_no INTEGER NOT NULL,
+    stock_quantity INTEGER NOT NULL DEFAULT 0,
+    sold_count INTEGER NOT NULL DEFAULT 0,
+    CONSTRAINT uk_product_stock_shards_product_shard UNIQUE (product_id, shard_no)
+);
+
+-- Create stock_deltas table (reserved-stock sales journaled with the order, drained into products)
+CREATE TABLE IF NOT EXISTS stock_deltas (
+    id BIGSERIAL PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    quantity INTEGER NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    failed_at TIMESTAMP
+);
+
+-- Create outbox_messages table (order emails written with the order, sent by the dispatcher)
+CREATE TABLE IF NOT EXISTS outbox_messages (
+    id BIGSERIAL PRIMARY KEY,
+    type VARCHAR(40) NOT NULL,
+    aggregate_id BIGINT,
+    recipient VARCHAR(255) NOT NULL,
+    payload TEXT,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    locked_until TIMESTAMP,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP NOT NULL,
+    sent_at TIMESTAMP
+);
+
 -- Create indexes for better performance
 CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
 CREATE INDEX IF NOT EXISTS idx_products_category ON products(category);
 CREATE INDEX IF NOT EXISTS idx_products_active ON products(active);
+CREATE INDEX IF NOT EXISTS idx_products_name_id ON products(name, id);
+CREATE INDEX IF NOT EXISTS idx_products_price_id ON products(price, id);
+CREATE INDEX IF NOT EXISTS idx_products_rating_id ON products(rating, id);
+CREATE INDEX IF NOT EXISTS idx_products_created_at_id ON products(created_at, id);
+CREATE INDEX IF NOT EXISTS idx_products_updated_at_id ON products(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_product_tombstones_deleted_at_id ON product_tombstones(deleted_at, id);
+CREATE INDEX IF NOT EXISTS idx_stock_deltas_product_id ON stock_deltas(product_id);
 CREATE INDEX IF NOT EXISTS idx_orders_user_id ON orders(user_id);
 CREATE INDEX IF NOT EXISTS idx_orders_status ON orders(status);
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys(created_at);
+CREATE INDEX IF NOT EXISTS idx_outbox_messages_status_next_attempt ON outbox_messages(status, next_attempt_at);
 CREATE INDEX IF NOT EXISTS idx_cart_items_user_id ON cart_items(user_id);
 CREATE INDEX IF NOT EXISTS idx_reviews_product_id ON reviews(product_id);
 
@@ -127,5 +196,11 @@ SELECT setval('users_id_seq', COALESCE((SELECT MAX(id) FROM users), 1));
 SELECT setval('products_id_seq', COALESCE((SELECT MAX(id) FROM products), 1));
 SELECT setval('orders_id_seq', COALESCE((SELECT MAX(id) FROM orders), 1));
 SELECT setval('order_items_id_seq', COALESCE((SELECT MAX(id) FROM order_items), 1));
+
+-- Orders and order items take ids from pooled sequences (allocation size 50) so inserts can be batched
+CREATE SEQUENCE IF NOT EXISTS orders_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_items_seq INCREMENT BY 50;
+SELECT setval('orders_seq', COALESCE((SELECT MAX(id) FROM orders), 1));
+SELECT setval('order_items_seq', COALESCE((SELECT MAX(id) FROM order_items), 1));
 SELECT setval('cart_items_id_seq', COALESCE((SELECT MAX(id) FROM cart_items), 1));
 SELECT setval('reviews_id_seq', COALESCE((SELECT MAX(id) FROM reviews), 1));